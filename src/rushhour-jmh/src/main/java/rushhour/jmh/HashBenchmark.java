@@ -0,0 +1,73 @@
+package rushhour.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rushhour.Layout;
+import rushhour.Reader;
+import rushhour.VisitedSet;
+
+// Hashing and duplicate detection of one sampled state per operation
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashBenchmark {
+    @Param({"test1-UCS", "test2-UCS", "test3-UCS", "test4-UCS", "hard1", "hard2", "hard3"})
+    public String puzzle;
+
+    private long[][] keys;
+    private rushhour.State[] states;
+    private VisitedSet visited;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Reader reader = Puzzles.load(puzzle);
+        Layout layout = Puzzles.layout(reader);
+        List<long[]> sample = Puzzles.sample(reader);
+        keys = sample.toArray(new long[0][]);
+        states = new rushhour.State[keys.length];
+        visited = new VisitedSet(layout.getWords());
+        for (int i = 0; i < keys.length; i++) {
+            states[i] = Puzzles.state(layout, keys[i]);
+            visited.add(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public int keyHash() {
+        long[] key = keys[next];
+        next = next + 1 == keys.length ? 0 : next + 1;
+        return Layout.hash(key);
+    }
+
+    @Benchmark
+    public int stateHashCode() {
+        rushhour.State state = states[next];
+        next = next + 1 == states.length ? 0 : next + 1;
+        return state.hashCode();
+    }
+
+    // A hit in a visited set holding the whole sample
+    @Benchmark
+    public boolean visitedContains() {
+        long[] key = keys[next];
+        next = next + 1 == keys.length ? 0 : next + 1;
+        return visited.contains(key);
+    }
+}
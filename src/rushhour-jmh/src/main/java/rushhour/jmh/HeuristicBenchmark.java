@@ -0,0 +1,94 @@
+package rushhour.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rushhour.Heuristic;
+import rushhour.Heuristics;
+import rushhour.LaneBoard;
+import rushhour.Layout;
+import rushhour.MoveGenerator;
+import rushhour.Reader;
+
+// Heuristic evaluation of sampled states: one board from scratch, and all children
+// of a state either from scratch or through update from the parent's h
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HeuristicBenchmark {
+    @Param({"test1-UCS", "test2-UCS", "test3-UCS", "test4-UCS", "hard1", "hard2", "hard3"})
+    public String puzzle;
+
+    @Param({"MANHATTAN", "BLOCKING_PIECE_COUNT", "BLOCKER_GRAPH", "PATTERN_DATABASE"})
+    public String heuristicName;
+
+    private Heuristic heuristic;
+    private LaneBoard[] boards;
+    private long[][] keys;
+    private int[] parentH;
+    private MoveGenerator generator;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Reader reader = Puzzles.load(puzzle);
+        Layout layout = Puzzles.layout(reader);
+        List<long[]> sample = Puzzles.sample(reader);
+        keys = sample.toArray(new long[0][]);
+        boards = new LaneBoard[keys.length];
+        parentH = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            boards[i] = new LaneBoard(layout);
+            boards[i].load(keys[i]);
+        }
+        // bound to the layout once, as the searches do; also builds a pattern database
+        // here, outside the measurement
+        heuristic = Heuristics.forName(heuristicName).forLayout(boards[0]);
+        for (int i = 0; i < keys.length; i++) {
+            parentH[i] = heuristic.evaluate(boards[i]);
+        }
+        generator = new MoveGenerator(layout);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        LaneBoard board = boards[next];
+        next = next + 1 == boards.length ? 0 : next + 1;
+        return heuristic.evaluate(board);
+    }
+
+    @Benchmark
+    public void evaluateChildren(Blackhole blackhole) {
+        generator.load(keys[next]);
+        next = next + 1 == keys.length ? 0 : next + 1;
+        generator.forEachSuccessor((gen, pieceIndex, delta) -> blackhole.consume(heuristic.evaluate(gen.getBoard())));
+    }
+
+    // What the searches do: update first, evaluate only when it cannot tell
+    @Benchmark
+    public void updateChildren(Blackhole blackhole) {
+        int h = parentH[next];
+        generator.load(keys[next]);
+        next = next + 1 == keys.length ? 0 : next + 1;
+        generator.forEachSuccessor((gen, pieceIndex, delta) -> {
+            int child = heuristic.update(gen.getBoard(), h, pieceIndex, delta);
+            blackhole.consume(child != Heuristic.UNKNOWN ? child : heuristic.evaluate(gen.getBoard()));
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package rushhour.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rushhour.Heuristics;
+import rushhour.Reader;
+import rushhour.Solver;
+import rushhour.Solver.SearchMode;
+
+// Wall time and node counts of the parallel modes per worker count. The sequential
+// modes they replace are the threads=1 rows of A_STAR and UCS; they ignore threads, so
+// narrow them with -p threads=1. Counts above the available cores only measure
+// contention.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelBenchmark {
+    @Param({"PARALLEL_A_STAR", "PARALLEL_UCS", "A_STAR", "UCS"})
+    public String mode;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"test1-UCS", "test2-UCS", "test3-UCS", "test4-UCS", "hard1", "hard2", "hard3"})
+    public String puzzle;
+
+    private Solver solver;
+    private SearchMode searchMode;
+
+    @Setup
+    public void setup() {
+        Reader reader = Puzzles.load(puzzle);
+        searchMode = SearchMode.valueOf(mode);
+        solver = new Solver(reader.getBoard(), reader.getPieces(), reader.getPrimaryPieceRef(),
+                Heuristics.BLOCKING_PIECE_COUNT);
+        solver.setVerbose(false);
+        solver.setThreads(threads);
+    }
+
+    @Benchmark
+    public List<rushhour.State> solve(SolveCounters counters) {
+        List<rushhour.State> path = solver.solve(searchMode);
+        counters.record(solver, path);
+        return path;
+    }
+}
@@ -0,0 +1,62 @@
+package rushhour.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rushhour.Heuristics;
+import rushhour.MovePruning;
+import rushhour.Reader;
+import rushhour.Solver;
+import rushhour.Solver.SearchMode;
+
+// Generated, duplicate and pruned children of every MovePruning rule per mode and
+// puzzle (see SolveCounters). IDA* applies at least SAME_PIECE, so its NONE and
+// SAME_PIECE rows are the same search.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PruningBenchmark {
+    @Param({"UCS", "A_STAR", "IDA_STAR"})
+    public String mode;
+
+    @Param({"NONE", "SAME_PIECE", "COMMUTING"})
+    public String pruning;
+
+    @Param({"test1-UCS", "test2-UCS", "test3-UCS", "test4-UCS", "hard1", "hard2", "hard3"})
+    public String puzzle;
+
+    private Solver solver;
+    private SearchMode searchMode;
+
+    @Setup
+    public void setup() {
+        Reader reader = Puzzles.load(puzzle);
+        searchMode = SearchMode.valueOf(mode);
+        solver = new Solver(reader.getBoard(), reader.getPieces(), reader.getPrimaryPieceRef(),
+                Heuristics.BLOCKING_PIECE_COUNT);
+        solver.setVerbose(false);
+        solver.setMovePruning(MovePruning.valueOf(pruning));
+    }
+
+    @Benchmark
+    public List<rushhour.State> solve(SolveCounters counters) {
+        List<rushhour.State> path = solver.solve(searchMode);
+        counters.record(solver, path);
+        return path;
+    }
+}
@@ -0,0 +1,67 @@
+package rushhour.jmh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import rushhour.Layout;
+import rushhour.MoveGenerator;
+import rushhour.Piece;
+import rushhour.PrimaryPiece;
+import rushhour.Reader;
+import rushhour.State;
+import rushhour.VisitedSet;
+
+// Benchmark inputs, loaded from the classpath: the puzzles of test/ (test4 has no
+// solution) and hard1..hard3, generated as the states farthest from any goal in
+// random 6x6 layouts (37, 35 and 33 moves), plus a fixed sample of states
+// reachable from each.
+final class Puzzles {
+    static final int SAMPLE_SIZE = 1024;
+
+    private Puzzles() {
+    }
+
+    static Reader load(String name) {
+        try (InputStream in = Puzzles.class.getResourceAsStream("/puzzles/" + name + ".txt")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown puzzle: " + name + ". Expected a file in test/ or src/main/resources/puzzles");
+            }
+            return Reader.fromText(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Layout layout(Reader reader) {
+        return new Layout(reader.getBoard(), reader.getPieces());
+    }
+
+    // The first SAMPLE_SIZE keys in breadth-first order from the puzzle's start, so
+    // every run measures the same states
+    static List<long[]> sample(Reader reader) {
+        Layout layout = layout(reader);
+        long[] start = layout.encode(reader.getPieces());
+        VisitedSet seen = new VisitedSet(layout.getWords());
+        List<long[]> keys = new ArrayList<>();
+        seen.add(start);
+        keys.add(start);
+        MoveGenerator generator = new MoveGenerator(layout);
+        for (int i = 0; i < keys.size() && keys.size() < SAMPLE_SIZE; i++) {
+            generator.load(keys.get(i));
+            generator.forEachSuccessor((gen, pieceIndex, delta) -> {
+                if (keys.size() < SAMPLE_SIZE && seen.add(gen.getKey())) keys.add(gen.getKey().clone());
+            });
+        }
+        return keys;
+    }
+
+    static State state(Layout layout, long[] key) {
+        List<Piece> pieces = layout.createPieces(key);
+        PrimaryPiece primary = (PrimaryPiece) pieces.get(layout.getPrimaryIndex());
+        return new State(layout.createBoard(), pieces, null, null, 0, primary);
+    }
+}
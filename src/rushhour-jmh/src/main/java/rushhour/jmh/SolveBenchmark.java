@@ -0,0 +1,95 @@
+package rushhour.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rushhour.Heuristics;
+import rushhour.Layout;
+import rushhour.PieceOrder;
+import rushhour.PositionDatabase;
+import rushhour.Reader;
+import rushhour.Solver;
+import rushhour.Solver.SearchMode;
+
+// Whole solves for every search mode x heuristic x puzzle. The full matrix is long;
+// narrow it with -p, e.g. -p mode=A_STAR,IDA_STAR -p puzzle=hard1. Modes that
+// ignore the heuristic (UCS, PARALLEL_UCS, BIDIRECTIONAL) still pay for its
+// evaluation where they compute h, so their rows differ too. DATABASE builds the
+// puzzle's position database into a temporary directory at setup, outside the
+// measurement, and measures the walk down it.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SolveBenchmark {
+    @Param({"GREEDY", "A_STAR", "UCS", "PARALLEL_A_STAR", "PARALLEL_UCS", "BIDIRECTIONAL", "IDA_STAR", "DATABASE"})
+    public String mode;
+
+    @Param({"NONE", "MANHATTAN", "BLOCKING_PIECE_COUNT", "BLOCKER_GRAPH", "PATTERN_DATABASE"})
+    public String heuristicName;
+
+    @Param({"test1-UCS", "test2-UCS", "test3-UCS", "test4-UCS", "hard1", "hard2", "hard3"})
+    public String puzzle;
+
+    // keeps the weakest combinations (IDA* without a heuristic) from running for hours;
+    // a solve that stops here measures the time to use up the budget
+    @Param({"10000000"})
+    public long maxNodes;
+
+    private Solver solver;
+    private SearchMode searchMode;
+    private Path databaseDirectory; // null unless mode is DATABASE
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        Reader reader = Puzzles.load(puzzle);
+        searchMode = SearchMode.valueOf(mode);
+        solver = new Solver(reader.getBoard(), reader.getPieces(), reader.getPrimaryPieceRef(),
+                Heuristics.forName(heuristicName));
+        solver.setVerbose(false);
+        solver.setNodeLimit(maxNodes);
+        if (searchMode == SearchMode.DATABASE) {
+            Layout layout = Puzzles.layout(reader);
+            databaseDirectory = Files.createTempDirectory("rushhour-db");
+            PositionDatabase.build(PieceOrder.byLetter(layout), layout.encode(reader.getPieces()), databaseDirectory,
+                    Runtime.getRuntime().availableProcessors(), 100_000_000L);
+            solver.setDatabaseDirectory(databaseDirectory);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (databaseDirectory == null) return;
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(databaseDirectory)) {
+            files = stream.collect(Collectors.toList());
+        }
+        for (Path file : files) Files.delete(file);
+        Files.delete(databaseDirectory);
+    }
+
+    @Benchmark
+    public List<rushhour.State> solve() {
+        return solver.solve(searchMode);
+    }
+}
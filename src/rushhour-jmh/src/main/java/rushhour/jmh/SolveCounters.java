@@ -0,0 +1,33 @@
+package rushhour.jmh;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import rushhour.SearchMetrics;
+import rushhour.Solver;
+
+// Work of the last solve of an iteration, reported next to the time per solve. Every
+// field is set, not added to, so a sequential solve reports its exact counts; a
+// parallel one reports the counts of one run. steps must match across the rows of a
+// puzzle wherever the mode is optimal.
+@AuxCounters(AuxCounters.Type.EVENTS)
+@State(Scope.Thread)
+public class SolveCounters {
+    public long expanded;
+    public long generated;
+    public long duplicates;
+    public long pruned;
+    public long steps;
+
+    void record(Solver solver, List<rushhour.State> path) {
+        SearchMetrics metrics = solver.getMetrics();
+        expanded = metrics.getExpanded();
+        generated = metrics.getGenerated();
+        duplicates = metrics.getDuplicates();
+        pruned = metrics.getPruned();
+        steps = path.size() - 1;
+    }
+}
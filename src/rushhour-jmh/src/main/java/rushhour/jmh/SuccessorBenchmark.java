@@ -0,0 +1,68 @@
+package rushhour.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import rushhour.Heuristics;
+import rushhour.Layout;
+import rushhour.MoveGenerator;
+import rushhour.Reader;
+
+// Successors of one sampled state per operation, cycling through the sample
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SuccessorBenchmark {
+    @Param({"test1-UCS", "test2-UCS", "test3-UCS", "test4-UCS", "hard1", "hard2", "hard3"})
+    public String puzzle;
+
+    private MoveGenerator generator;
+    private long[][] keys;
+    private rushhour.State[] states;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Reader reader = Puzzles.load(puzzle);
+        Layout layout = Puzzles.layout(reader);
+        List<long[]> sample = Puzzles.sample(reader);
+        generator = new MoveGenerator(layout);
+        keys = sample.toArray(new long[0][]);
+        states = new rushhour.State[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            states[i] = Puzzles.state(layout, keys[i]);
+        }
+    }
+
+    // What the searches run: slides applied in place, nothing allocated per successor
+    @Benchmark
+    public void forEachSuccessor(Blackhole blackhole) {
+        generator.load(keys[next]);
+        next = next + 1 == keys.length ? 0 : next + 1;
+        generator.forEachSuccessor((gen, pieceIndex, delta) -> blackhole.consume(gen.getKey()));
+    }
+
+    // The object API: one State per successor
+    @Benchmark
+    public List<rushhour.State> generateSuccessors() {
+        rushhour.State state = states[next];
+        next = next + 1 == states.length ? 0 : next + 1;
+        return state.generateSuccessors(Heuristics.NONE);
+    }
+}
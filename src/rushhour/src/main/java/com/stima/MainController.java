@@ -1,19 +1,22 @@
 package com.stima;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
-import javafx.animation.SequentialTransition;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextArea;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Pane;
@@ -26,10 +29,14 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 import rushhour.Board;
+import rushhour.Heuristic;
 import rushhour.Heuristics;
+import rushhour.Layout;
 import rushhour.Piece;
 import rushhour.PrimaryPiece;
 import rushhour.Reader;
+import rushhour.Solution;
+import rushhour.SolutionCache;
 import rushhour.Solver;
 import rushhour.Solver.SearchMode;
 import rushhour.State;
@@ -44,12 +51,15 @@ public class MainController {
     private static final int BOARD_PANE_HEIGHT = 350;
 
     private static final int STEP_DURATION = 200; // milliseconds
+    private static final int PROGRESS_INTERVAL = 100; // milliseconds
 
     // FXML Components
     @FXML private ChoiceBox<String> algorithmChoiceBox;
     @FXML private ChoiceBox<String> heuristicChoiceBox;
     @FXML private Button uploadFileButton;
     @FXML private Button solveButton;
+    @FXML private Button cancelButton;
+    @FXML private ProgressBar solveProgressBar;
     @FXML private TextArea boardTextArea;
     @FXML private Text alertMessageText;
     @FXML private Text filenameText;
@@ -68,13 +78,16 @@ public class MainController {
     private long solvingStartTime;
     private List<Piece> pieces;
     private PrimaryPiece primaryPiece;
-    private List<State> solutionSteps;
-    private int currentStep = 0;
+    private Solution solution; // null unless solved
+    private Solution.Cursor cursor; // step the board shows
     private Solver solver;
+    private Task<Solution> solveTask; // the running solve, null when idle
+    // outlives the solver, which is rebuilt with every applied configuration
+    private final SolutionCache solutionCache = new SolutionCache(SolutionCache.DEFAULT_MAX_BYTES, SolutionCache.defaultFile());
     private boolean isPlaying = false;
     private boolean isSolved = false;
     private boolean isConfigured = false;
-    private SequentialTransition sequentialTransition;
+    private Playback playback;
 
     // FXML Components for the board
     @FXML private Pane boardPane;
@@ -95,17 +108,18 @@ public class MainController {
 
         clearAlerts();
         clearBoard();
+        cancelButton.setDisable(true);
 
         algorithmChoiceBox.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
-            boolean heuristicNeeded = !newVal.equals("UCS");
+            boolean heuristicNeeded = !newVal.equals("UCS") && !newVal.equals("Bidirectional") && !newVal.equals("Database");
             heuristicChoiceBox.setValue(heuristicNeeded ? "Manhattan" : "");
             heuristicChoiceBox.setDisable(!heuristicNeeded);
         });
 
-        algorithmChoiceBox.getItems().addAll("UCS", "A*", "GBFS");
+        algorithmChoiceBox.getItems().addAll("UCS", "A*", "GBFS", "Bidirectional", "IDA*", "Database");
         algorithmChoiceBox.setValue("UCS");
         
-        heuristicChoiceBox.getItems().addAll("Manhattan", "Blocking Piece Count");
+        heuristicChoiceBox.getItems().addAll("Manhattan", "Blocking Piece Count", "Blocker Graph", "Pattern Database");
         heuristicChoiceBox.setValue("");
     }
 
@@ -117,54 +131,16 @@ public class MainController {
             throw new IllegalArgumentException("Board is empty");
         }
 
-        int row, col, numPieces;
+        int row, col;
 
-        // input parsing
-        String[] lines = s.split("\\R");
-        String[] firstLine = lines[0].split(" ");
-        if (firstLine.length != 2) {
-            throw new IllegalArgumentException("Must provide two integers for rows and columns");
-        }
-        try {
-            row = Integer.parseInt(firstLine[0]);
-            col = Integer.parseInt(firstLine[1]);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Rows and colums must be integers");
-        }
-
-        if (row <= 0 || col <= 0) {
-            throw new IllegalArgumentException("Rows and colums must be non zero positive integers");
-        }
-        
-        String[] secondLine = lines[1].split(" ");
-        if (secondLine.length != 1) {
-            throw new IllegalArgumentException("Must provide one integer for number of pieces");
-        }
-        try {
-            numPieces = Integer.parseInt(secondLine[0]);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Number of pieces must be an integer");
-        }
-        if (numPieces <= 0) {
-            throw new IllegalArgumentException("Number of pieces must be a non zero positive integer");
-        }
-
-        StringBuilder sb = new StringBuilder();
-        for (int i = 2; i < lines.length; i++) {
-            sb.append(lines[i]);
-            if (i != lines.length - 1) {
-                sb.append("\n");
-            }
-        }
-
-        s = sb.toString();
-
-        // initialize board and pieces
+        // input parsing and board/pieces initialization
         try {
-            Reader r = new Reader(s, col, row, numPieces);
+            Reader r = Reader.fromText(s);
             pieces = r.getPieces();
             primaryPiece = r.getPrimaryPieceRef();
             board = r.getBoard();
+            row = board.getHeight();
+            col = board.getWidth();
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException(e.getMessage());
         }
@@ -239,183 +215,135 @@ public class MainController {
     // Animation logic
     // ================================================================================
 
-    private Timeline createPieceTimeline(PieceRectangle rect, int cellsX, int cellsY) {
+    // Pixel position of piece k's rectangle at the cursor's step; on the last step of a
+    // solved puzzle the primary piece is drawn through the exit
+    private double[] rectanglePosition(Solution.Cursor at, int k) {
+        Layout layout = solution.getLayout();
+        int pieceI = layout.isVertical(k) ? at.getOffset(k) : layout.getLane(k);
+        int pieceJ = layout.isVertical(k) ? layout.getLane(k) : at.getOffset(k);
+        if (isSolved && k == layout.getPrimaryIndex() && !at.hasNext()) {
+            if (layout.isVertical(k)) {
+                pieceI = board.getWinPosI() == 0 ? -layout.getLength(k) + 1 : board.getWinPosI();
+            } else {
+                pieceJ = board.getWinPosJ() == 0 ? -layout.getLength(k) + 1 : board.getWinPosJ();
+            }
+        }
+        return new double[]{pieceJ * gridSize + GRID_BORDER, pieceI * gridSize + GRID_BORDER};
+    }
 
-        double targetX = rect.getX() + cellsX * gridSize;
-        double targetY = rect.getY() + cellsY * gridSize;
+    // Slides piece k's rectangle to where the cursor's step has it
+    private Timeline createPieceTimeline(Solution.Cursor at, int k) {
+        PieceRectangle rect = boardRectangles.get(k);
+        double[] target = rectanglePosition(at, k);
 
         Timeline timeline = new Timeline(
             new KeyFrame(Duration.millis(STEP_DURATION),
-            new KeyValue(rect.xProperty(), targetX),
-            new KeyValue(rect.yProperty(), targetY))
+            new KeyValue(rect.xProperty(), target[0]),
+            new KeyValue(rect.yProperty(), target[1]))
         );
         return timeline;
     }
 
-    private void movePieceRectangle(PieceRectangle rect, int cellsX, int cellsY) {
-        if (rect == null) return;
-        
-        Timeline timeline = createPieceTimeline(rect, cellsX, cellsY);
-        timeline.play();
-    }
-
+    // Plays the solution from the cursor's step to the end. Only the next LOOKAHEAD moves
+    // exist as Timelines: each one is built from the move list as the playhead comes
+    // near and dropped once played, so playback starts at once and holds the same memory
+    // however long the solution is.
+    private class Playback {
+        private static final int LOOKAHEAD = 4;
 
-    @FXML
-    private void onClickPlay() {
-        if (solutionSteps == null || solutionSteps.isEmpty()) {
-            return;
-        }
+        private final Solution.Cursor ahead; // step after the last queued move
+        private final ArrayDeque<Timeline> queued = new ArrayDeque<>();
+        private boolean stopped = false;
 
-        setRectanglesToCurrentState();
-        if (isPlaying) {
-            isPlaying = false;
-            playButton.setText("Play");
-            nextButton.setDisable(false);
-            previousButton.setDisable(false);
-            toStartButton.setDisable(false);
-            toEndButton.setDisable(false);
-            if (sequentialTransition != null) {
-                sequentialTransition.stop();
+        Playback() {
+            ahead = solution.cursor();
+            ahead.seek(cursor.getStep());
+            while (queued.size() < LOOKAHEAD && ahead.hasNext()) {
+                enqueue();
             }
-            return;
         }
 
-        isPlaying = true;
-        playButton.setText("Pause");
-        nextButton.setDisable(true);
-        previousButton.setDisable(true);
-        toStartButton.setDisable(true);
-        toEndButton.setDisable(true);
+        private void enqueue() {
+            int k = solution.getPiece(ahead.getStep());
+            ahead.next();
+            Timeline timeline = createPieceTimeline(ahead, k);
+            timeline.setOnFinished(e -> advance());
+            queued.add(timeline);
+        }
 
-        // Create a sequential transition for all steps
-        if (sequentialTransition != null) {
-            sequentialTransition.stop();
+        void play() {
+            if (queued.isEmpty()) {
+                finishPlayback();
+            } else {
+                queued.peek().play();
+            }
         }
-        sequentialTransition = new SequentialTransition();
 
-        State currentState = solutionSteps.get(currentStep);
-        int deltaX = 0, deltaY = 0, pieceIndex = -1, stepCount = 0;
-        Timeline timeline = null;
+        // The playing move is done: the playhead moves on and one more move is built
+        private void advance() {
+            queued.poll();
+            cursor.next();
+            updateStepCounterLabel();
+            if (stopped) return;
+            if (ahead.hasNext()) enqueue();
+            play();
+        }
 
-        // track last movement of each piece
-        ArrayList<int[]>[] deltas = new ArrayList[pieces.size()];
-        for (int i = 0; i < deltas.length; i++) {
-            deltas[i] = new ArrayList<>();
-            deltas[i].add(new int[]{0, 0});
+        // Leaves the rectangles wherever the playing move had taken them
+        void stop() {
+            stopped = true;
+            Timeline playing = queued.peek();
+            if (playing != null) playing.stop();
         }
+    }
 
-        // iterate through the solution steps
-        int step;
-        for (step = currentStep; step < solutionSteps.size() - 1 && isPlaying; step++) {
-            State nextState = solutionSteps.get(step + 1);
-            
-            timeline = null;
-            
-            // search for a piece that moves
-            for (int i = 0; i < pieces.size(); i++) {
-                Piece piece = currentState.getPieces().get(i);
-                Piece nextPiece = nextState.getPieces().get(i);
-                if (piece.getPosI() != nextPiece.getPosI() || piece.getPosJ() != nextPiece.getPosJ()) {
-                    // piece moved
-                    stepCount++;
-                    if (pieceIndex == -1) {
-                        stepCount = 0;
-                        pieceIndex = i;
-                        deltaX = nextPiece.getPosJ() - piece.getPosJ();
-                        deltaY = nextPiece.getPosI() - piece.getPosI();
-                    } else if (pieceIndex == i) {
-                        deltaX += nextPiece.getPosJ() - piece.getPosJ();
-                        deltaY += nextPiece.getPosI() - piece.getPosI();
-                    } else {
-                        PieceRectangle previousRect = boardRectangles.get(pieceIndex);
-                        int[] lastDelta = deltas[pieceIndex].remove(deltas[pieceIndex].size() - 1);
-                        int[] newDelta = new int[]{lastDelta[0] + deltaX, lastDelta[1] + deltaY};
-                        timeline = createPieceTimeline(previousRect, newDelta[0], newDelta[1]);
-                        deltas[pieceIndex].add(new int[]{newDelta[0], newDelta[1]});
-                        final int currentStepFinal = stepCount;
-                        timeline.setOnFinished(e -> {
-                            currentStep += currentStepFinal;
-                            updateStepCounterLabel();
-                        });
-                        
-                        pieceIndex = i;
-                        stepCount = 0;
-                        deltaX = nextPiece.getPosJ() - piece.getPosJ();
-                        deltaY = nextPiece.getPosI() - piece.getPosI();
-                    }
-                    currentState = nextState;
-                    break;
+    private void setPlaybackControls(boolean playing) {
+        isPlaying = playing;
+        playButton.setText(playing ? "Pause" : "Play");
+        nextButton.setDisable(playing);
+        previousButton.setDisable(playing);
+        toStartButton.setDisable(playing);
+        toEndButton.setDisable(playing);
+    }
 
-                }
-            }
+    private void finishPlayback() {
+        playback = null;
+        setPlaybackControls(false);
+    }
 
-            if (timeline == null) {
-                continue;
-            }
-            sequentialTransition.getChildren().add(timeline);
+    @FXML
+    private void onClickPlay() {
+        if (solution == null) {
+            return;
         }
 
-        if (pieceIndex != -1) {
-            int[] lastDelta = deltas[pieceIndex].remove(deltas[pieceIndex].size() - 1);
-            int[] newDelta = new int[]{lastDelta[0] + deltaX, lastDelta[1] + deltaY};
-
-            
-            Piece pieceOnPlay = solutionSteps.get(currentStep).getPieces().get(pieceIndex);
-
-            // debug condition
-            // System.out.println("is primary piece: " + (pieceOnPlay instanceof PrimaryPiece));
-            // System.out.println("is solved: " + isSolved);
-            // System.out.println("is last step: " + (step + stepCount == solutionSteps.size() - 1));
-            // System.out.println("step: " + step);
-            // System.out.println("step count: " + stepCount);
-            if (pieceOnPlay instanceof PrimaryPiece && isSolved && step + stepCount >= solutionSteps.size() - 1) {
-                if (currentState.getPieces().get(pieceIndex).isVertical()) {
-                    newDelta[1] = board.getWinPosI() - pieceOnPlay.getPosI() - (board.getWinPosI() == 0 ? pieceOnPlay.getHeight() - 1 : 0);
-                } else {
-                    newDelta[0] = board.getWinPosJ() - pieceOnPlay.getPosJ() - (board.getWinPosJ() == 0 ? pieceOnPlay.getWidth() - 1 : 0);
-                }
-            }
-            timeline = createPieceTimeline(boardRectangles.get(pieceIndex), newDelta[0], newDelta[1]);
-            final int currentStepFinal = stepCount;
-            timeline.setOnFinished(e -> {
-                currentStep += currentStepFinal;
-                updateStepCounterLabel();
-            });
-            sequentialTransition.getChildren().add(timeline);
+        if (isPlaying) {
+            playback.stop();
+            playback = null;
+            setPlaybackControls(false);
+            setRectanglesToCurrentState();
+            return;
         }
-        
-        sequentialTransition.setOnFinished(e -> {
-            currentStep = solutionSteps.size() - 1;
-            isPlaying = false;
-            playButton.setText("Play");
-            nextButton.setDisable(false);
-            previousButton.setDisable(false);
-            toStartButton.setDisable(false);
-            toEndButton.setDisable(false);
-        });
-        
-        currentStep++;
-        updateStepCounterLabel();
-        sequentialTransition.play();
+
+        setRectanglesToCurrentState();
+        setPlaybackControls(true);
+        playback = new Playback();
+        playback.play();
     }
 
     @FXML
     private void onClickToStart() {
         if (!isPlaying) {
+            cursor.seek(0);
             setRectanglesToCurrentState();
-            currentStep = 0;
-            setRectanglesToCurrentState();
-            updateStepCounterLabel();
         }
     }
 
     @FXML
     private void onClickToEnd() {
         if (!isPlaying) {
+            cursor.seek(solution.length());
             setRectanglesToCurrentState();
-            currentStep = solutionSteps.size() - 1;
-            setRectanglesToCurrentState();
-            updateStepCounterLabel();
         }
     }
     
@@ -428,27 +356,10 @@ public class MainController {
     }
     
     private void nextStep() {
-        if (currentStep < solutionSteps.size() - 1) {
-            State currentState = solutionSteps.get(currentStep);
-            State nextState = solutionSteps.get(++currentStep);
-            for (int i = 0; i < pieces.size(); i++) {
-                Piece piece = currentState.getPieces().get(i);
-                Piece nextPiece = nextState.getPieces().get(i);
-                if (piece.getPosI() != nextPiece.getPosI() || piece.getPosJ() != nextPiece.getPosJ()) {
-                    int nextPieceI = nextPiece.getPosI();
-                    int nextPieceJ = nextPiece.getPosJ();
-
-                    if (currentStep == solutionSteps.size() - 1 && piece instanceof PrimaryPiece) {
-                        nextPieceI = board.getWinPosI() == 0 ? -piece.getHeight() + 1 : board.getWinPosI();
-                        nextPieceJ = board.getWinPosJ() == 0 ? -piece.getWidth() + 1 : board.getWinPosJ();
-                    }
-
-                    int deltaX = nextPieceJ - piece.getPosJ();
-                    int deltaY = nextPieceI - piece.getPosI();
-
-                    movePieceRectangle(boardRectangles.get(i), deltaX, deltaY);
-                }
-            }
+        if (cursor.hasNext()) {
+            int k = solution.getPiece(cursor.getStep());
+            cursor.next();
+            createPieceTimeline(cursor, k).play();
             updateStepCounterLabel();
         }
     }
@@ -462,53 +373,29 @@ public class MainController {
     }
     
     private void previousStep() {
-        if (currentStep > 0) {
-            State currentState = solutionSteps.get(currentStep);
-            State prevState = solutionSteps.get(--currentStep);
-            for (int i = 0; i < pieces.size(); i++) {
-                Piece piece = currentState.getPieces().get(i);
-                Piece prevPiece = prevState.getPieces().get(i);
-                if (piece.getPosI() != prevPiece.getPosI() || piece.getPosJ() != prevPiece.getPosJ()) {
-                    int pieceI = piece.getPosI();
-                    int pieceJ = piece.getPosJ();
-                    if (currentStep+1 == solutionSteps.size() - 1 && piece instanceof PrimaryPiece) {
-                        pieceI = board.getWinPosI() == 0 ? -piece.getHeight() + 1 : board.getWinPosI();
-                        pieceJ = board.getWinPosJ() == 0 ? -piece.getWidth() + 1 : board.getWinPosJ();
-                    }
-                    int deltaX = prevPiece.getPosJ() - pieceJ;
-                    int deltaY = prevPiece.getPosI() - pieceI;
-                    movePieceRectangle(boardRectangles.get(i), deltaX, deltaY);
-                    break;
-                }
-            }
+        if (cursor.hasPrevious()) {
+            int k = solution.getPiece(cursor.getStep() - 1);
+            cursor.previous();
+            createPieceTimeline(cursor, k).play();
             updateStepCounterLabel();
         }
     }
 
     private void setRectanglesToCurrentState() {
-        if (currentStep < solutionSteps.size()) {
-            State currentState = solutionSteps.get(currentStep);
-            for (int i = 0; i < pieces.size(); i++) {
-                Piece piece = currentState.getPieces().get(i);
-                PieceRectangle rect = boardRectangles.get(i);
-                int pieceI = piece.getPosI();
-                int pieceJ = piece.getPosJ();
-                if (currentStep == solutionSteps.size() - 1 && piece instanceof PrimaryPiece) {
-                    pieceI = board.getWinPosI() == 0 ? -piece.getHeight() + 1 : board.getWinPosI();
-                    pieceJ = board.getWinPosJ() == 0 ? -piece.getWidth() + 1 : board.getWinPosJ();
-                }
-                double x = pieceJ * gridSize + GRID_BORDER;
-                double y = pieceI * gridSize + GRID_BORDER;
-                rect.setX(x);
-                rect.setY(y);
+        if (solution != null) {
+            for (int k = 0; k < boardRectangles.size(); k++) {
+                double[] position = rectanglePosition(cursor, k);
+                PieceRectangle rect = boardRectangles.get(k);
+                rect.setX(position[0]);
+                rect.setY(position[1]);
             }
             updateStepCounterLabel();
         }
     }
 
     private void updateStepCounterLabel() {
-        if (solutionSteps != null && !solutionSteps.isEmpty() && isSolved) { 
-            stepCounterLabel.setText("Step: " + (currentStep) + " out of " + (solutionSteps.size()-1));
+        if (solution != null && isSolved) { 
+            stepCounterLabel.setText("Step: " + cursor.getStep() + " out of " + solution.length());
         } else {
             stepCounterLabel.setText("Step: -"); 
         }
@@ -752,6 +639,11 @@ public class MainController {
             return;
         }
 
+        if (playback != null) {
+            playback.stop();
+            finishPlayback();
+        }
+        solution = null;
         playButton.setDisable(true);
         nextButton.setDisable(true);
         previousButton.setDisable(true);
@@ -775,55 +667,108 @@ public class MainController {
             case "GBFS":
                 searchMode = SearchMode.GREEDY;
                 break;
+            case "Bidirectional":
+                searchMode = SearchMode.BIDIRECTIONAL;
+                break;
+            case "IDA*":
+                searchMode = SearchMode.IDA_STAR;
+                break;
+            case "Database":
+                searchMode = SearchMode.DATABASE;
+                break;
             default:
                 showAlert("Invalid algorithm selected", "ERROR");
                 return;
         }
 
-        String heuristic = heuristicChoiceBox.getValue();
+        Heuristic heuristic = Heuristics.forName(heuristicChoiceBox.getValue());
+        solver.setHeuristic(heuristic);
+        solver.setSolutionCache(solutionCache);
+        // boards edited by relettering same-size cars reuse earlier solutions; playback still shows these letters
+        solver.setInterchangeablePieces(true);
+        solver.setPhaseTiming(true);
 
-
-        Task<Boolean> solveTask = new Task<Boolean>() {
+        solveTask = new Task<Solution>() {
+            // null if no solution was found; the FX thread takes it from getValue
             @Override
-            protected Boolean call() throws Exception { 
-                Heuristics.heuristicType = heuristic.toUpperCase().replace(" ", "_");
-
-                // solutionSteps = new ArrayList<>();
-                // solutionSteps.add(new rushhour.State(board, pieces, null, null, 0, primaryPiece));
-                // solutionSteps.addAll(solver.solve(searchMode));
-
-                solutionSteps = solver.solve(searchMode);
-
-                boolean foundSolution = solver.hasFoundSolution(); 
-                return foundSolution;
+            protected Solution call() throws Exception { 
+                try {
+                    // the search polls isCancelled itself, so Cancel stops it within a few hundred nodes
+                    solver.setCancellation(this::isCancelled);
+                    solver.setProgressListener(progress -> {
+                        updateMessage(progress.toString());
+                        if (progress.getInitialH() > 0 && progress.getBestH() >= 0) {
+                            updateProgress(progress.getInitialH() - progress.getBestH(), progress.getInitialH());
+                        }
+                    }, PROGRESS_INTERVAL);
+                    List<State> path = solver.solve(searchMode);
+                    try {
+                        // one write per solve, on this thread rather than the FX thread
+                        solutionCache.flush();
+                    } catch (IOException e) {
+                        // not fatal: the cache only loses persistence across runs
+                    }
+                    return solver.hasFoundSolution() ? Solution.of(path) : null;
+                } finally {
+                    // a cancelled task reports at once, but the solver is only free again
+                    // when this returns; the next solve must not share it before then
+                    Platform.runLater(() -> solveButton.setDisable(false));
+                }
             }
         };
 
         setupSolveTask(solveTask); 
+        solveButton.setDisable(true);
+        cancelButton.setDisable(false);
+        solveProgressBar.progressProperty().bind(solveTask.progressProperty());
+        solveProgressBar.setVisible(true);
+        solveTask.messageProperty().addListener((obs, oldVal, newVal) -> showAlert("Solving... " + newVal, "INFO"));
         solvingStartTime = System.currentTimeMillis();
-        new Thread(solveTask).start();
+        Thread solveThread = new Thread(solveTask, "solver");
+        solveThread.setDaemon(true); // closing the window must not wait for a long solve
+        solveThread.start();
     }
 
-    // Modify setupSolveTask to handle Task<Boolean>
-    private void setupSolveTask(Task<Boolean> solveTask) {
+    @FXML
+    private void onClickCancel() {
+        if (solveTask != null) {
+            // no interrupt: the solver checks the task's cancelled flag on its own
+            solveTask.cancel(false);
+        }
+    }
+
+    // Back to idle once the solve succeeded, failed or was cancelled; Solve is enabled
+    // again by the task itself once the solver has returned
+    private void finishSolveTask() {
+        solveTask = null;
+        cancelButton.setDisable(true);
+        solveProgressBar.progressProperty().unbind();
+        solveProgressBar.setVisible(false);
+    }
+
+    // Modify setupSolveTask to handle Task<Solution>
+    private void setupSolveTask(Task<Solution> solveTask) {
         solveTask.setOnSucceeded(e -> {
-            boolean foundSolution = solveTask.getValue();
+            finishSolveTask();
+            solution = solveTask.getValue();
+            boolean foundSolution = solution != null;
             isSolved = foundSolution;
 
             if (foundSolution) {
                 long solvingDuration = System.currentTimeMillis() - solvingStartTime;
                 String durationMessage = formatDuration(solvingDuration);
-                long steps = solutionSteps.size()-1;
+                long steps = solution.length();
+                String metrics = solver.getMetrics().toText();
 
                 if (heuristicChoiceBox.getValue().isBlank()) {
                     showAlert("Solution found using " + algorithmChoiceBox.getValue() + "!\n" +
-                              "Steps: " + steps + "\nTime: " + durationMessage, "SUCCESS");
+                              "Steps: " + steps + "\nTime: " + durationMessage + "\n" + metrics, "SUCCESS");
                 } else {
                     showAlert("Solution found using " + algorithmChoiceBox.getValue() + " with " + (heuristicChoiceBox.getValue()) + " heuristic!\n" +
-                              "Steps: " + steps + "\nTime: " + durationMessage, "SUCCESS");
+                              "Steps: " + steps + "\nTime: " + durationMessage + "\n" + metrics, "SUCCESS");
                 }
                 
-                currentStep = 0;
+                cursor = solution.cursor();
                 playButton.setDisable(false);
                 nextButton.setDisable(false);
                 previousButton.setDisable(false);
@@ -832,7 +777,7 @@ public class MainController {
                 stepCounterLabel.setVisible(true);
                 updateStepCounterLabel(); 
             } else {
-                showAlert("No solution found.", "ERROR");
+                showAlert("No solution found.\n" + solver.getMetrics().toText(), "ERROR");
                 playButton.setDisable(true);
                 nextButton.setDisable(true);
                 previousButton.setDisable(true);
@@ -842,7 +787,20 @@ public class MainController {
             }
         });
 
+        solveTask.setOnCancelled(e -> {
+            finishSolveTask();
+            isSolved = false;
+            showAlert("Solve cancelled.", "ERROR");
+            playButton.setDisable(true);
+            nextButton.setDisable(true);
+            previousButton.setDisable(true);
+            toStartButton.setDisable(true);
+            toEndButton.setDisable(true);
+            stepCounterLabel.setVisible(false);
+        });
+
         solveTask.setOnFailed(e -> {
+            finishSolveTask();
             isSolved = false; 
             Throwable exception = solveTask.getException();
             showAlert("Error during solving: " + exception.getMessage(), "ERROR");
@@ -889,7 +847,10 @@ public class MainController {
         try {
             if (boardPane != null) boardPane.getChildren().clear();
             if (boardRectangles != null) boardRectangles.clear();
-            if (solutionSteps != null) solutionSteps.clear();
+            if (playback != null) playback.stop();
+            playback = null;
+            solution = null;
+            cursor = null;
             isSolved = false;
             isPlaying = false;
             isConfigured = false;
@@ -0,0 +1,264 @@
+package rushhour;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import rushhour.Solver.SearchMode;
+
+// Headless solver for a directory of puzzle files in the test/ format. Puzzles are
+// solved on a fixed pool of workers, one single-threaded solve each, under per-puzzle
+// node, time and memory budgets. Rows are written in file-name order as soon as every earlier
+// puzzle is done, so the output is the same for any thread count (apart from the
+// timings, and from what a time budget cuts off).
+//
+// Columns: file, status (solved, unsolvable, node_limit, time_limit, memory_limit or
+// error), steps (-1 without a
+// path), nodes expanded, wall time in ms, peak bytes of the search's state tables,
+// and the error message if any.
+//
+// Usage: BatchSolver <puzzle directory> [--mode A_STAR] [--heuristic BLOCKING_PIECE_COUNT]
+//        [--threads cores] [--max-nodes N] [--time-limit ms] [--max-bytes N] [--format csv|jsonl] [--output file]
+public class BatchSolver {
+    private static final String USAGE = "Usage: BatchSolver <puzzle directory> [--mode A_STAR] [--heuristic BLOCKING_PIECE_COUNT]"
+            + " [--threads cores] [--max-nodes N] [--time-limit ms] [--max-bytes N] [--format csv|jsonl] [--output file]";
+
+    private final SearchMode mode;
+    private final Heuristic heuristic;
+    private final SolveConfig config;
+
+    public BatchSolver(SearchMode mode, Heuristic heuristic, SolveConfig config) {
+        this.mode = mode;
+        this.heuristic = heuristic;
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        Path dir = Paths.get(args[0]);
+        SearchMode mode = SearchMode.A_STAR;
+        Heuristic heuristic = Heuristics.BLOCKING_PIECE_COUNT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long maxNodes = Long.MAX_VALUE;
+        long timeLimit = 0;
+        long maxBytes = Long.MAX_VALUE;
+        boolean jsonl = false;
+        Path output = null;
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i] + ". " + USAGE);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--mode":
+                    mode = parseMode(value);
+                    break;
+                case "--heuristic":
+                    heuristic = Heuristics.forName(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--max-nodes":
+                    maxNodes = Long.parseLong(value);
+                    break;
+                case "--time-limit":
+                    timeLimit = Long.parseLong(value);
+                    break;
+                case "--max-bytes":
+                    maxBytes = Long.parseLong(value);
+                    break;
+                case "--format":
+                    if (!value.equals("csv") && !value.equals("jsonl")) {
+                        throw new IllegalArgumentException("Unknown format: " + value + ". Expected: csv or jsonl");
+                    }
+                    jsonl = value.equals("jsonl");
+                    break;
+                case "--output":
+                    output = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i] + ". " + USAGE);
+            }
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, but found: " + threads);
+        }
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(p -> p.toString().endsWith(".txt")).sorted().collect(Collectors.toList());
+        }
+
+        BatchSolver batch = new BatchSolver(mode, heuristic, new SolveConfig(maxNodes, timeLimit, maxBytes));
+        PrintWriter out = output != null
+                ? new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))
+                : new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        long start = System.nanoTime();
+        List<Result> results;
+        try {
+            results = batch.run(files, threads, out, jsonl);
+        } finally {
+            out.flush();
+            if (output != null) out.close();
+        }
+
+        long solved = results.stream().filter(r -> r.status.equals("solved")).count();
+        System.err.printf("Solved %d of %d puzzles in %.1f s on %d threads%n", solved, results.size(),
+                (System.nanoTime() - start) / 1e9, threads);
+    }
+
+    private static SearchMode parseMode(String value) {
+        try {
+            return SearchMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown mode: " + value + ". Expected one of: "
+                    + Arrays.toString(SearchMode.values()));
+        }
+    }
+
+    // Solves every file and writes its row to out in the order of files, flushing each row
+    public List<Result> run(List<Path> files, int threads, PrintWriter out, boolean jsonl) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> pending = new ArrayList<>(files.size());
+            for (Path file : files) {
+                pending.add(pool.submit(() -> solve(file)));
+            }
+
+            if (!jsonl) out.println(Result.CSV_HEADER);
+            List<Result> results = new ArrayList<>(files.size());
+            for (Future<Result> future : pending) {
+                Result result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    // solve reports its own failures; anything else is a bug worth stopping for
+                    throw new IllegalStateException("Batch worker failed", e.getCause());
+                }
+                out.println(jsonl ? result.toJson() : result.toCsv());
+                out.flush();
+                results.add(result);
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public Result solve(Path file) {
+        String name = file.getFileName().toString();
+        long start = System.nanoTime();
+        try {
+            Reader reader = Reader.fromText(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            Solver solver = new Solver(reader.getBoard(), reader.getPieces(), reader.getPrimaryPieceRef(), heuristic);
+            solver.setVerbose(false);
+            solver.setThreads(1); // the pool already keeps every core busy
+
+            SolveResult result = solver.solve(mode, config);
+            String status = result.getReason().name().toLowerCase(Locale.ROOT);
+            return new Result(name, status, result.getPath().size() - 1, result.getExpanded(), millisSince(start),
+                    solver.getMemoryBytes(), "");
+        } catch (IOException | RuntimeException e) {
+            return new Result(name, "error", -1, 0, millisSince(start), 0, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static double millisSince(long start) {
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    public static final class Result {
+        static final String CSV_HEADER = "file,status,steps,nodes,ms,peak_bytes,error";
+
+        private final String file;
+        private final String status;
+        private final int steps;
+        private final long nodes;
+        private final double millis;
+        private final long peakBytes;
+        private final String error;
+
+        Result(String file, String status, int steps, long nodes, double millis, long peakBytes, String error) {
+            this.file = file;
+            this.status = status;
+            this.steps = steps;
+            this.nodes = nodes;
+            this.millis = millis;
+            this.peakBytes = peakBytes;
+            this.error = error;
+        }
+
+        String toCsv() {
+            return String.join(",", csv(file), status, String.valueOf(steps), String.valueOf(nodes),
+                    String.format(Locale.ROOT, "%.3f", millis), String.valueOf(peakBytes), csv(error));
+        }
+
+        String toJson() {
+            return "{\"file\":" + json(file) + ",\"status\":\"" + status + "\",\"steps\":" + steps
+                    + ",\"nodes\":" + nodes + ",\"ms\":" + String.format(Locale.ROOT, "%.3f", millis)
+                    + ",\"peak_bytes\":" + peakBytes + ",\"error\":" + json(error) + "}";
+        }
+
+        public String getFile() {
+            return file;
+        }
+        public String getStatus() {
+            return status;
+        }
+        public int getSteps() {
+            return steps;
+        }
+        public long getNodes() {
+            return nodes;
+        }
+        public double getMillis() {
+            return millis;
+        }
+        public long getPeakBytes() {
+            return peakBytes;
+        }
+        public String getError() {
+            return error;
+        }
+
+        private static String csv(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        private static String json(String value) {
+            StringBuilder sb = new StringBuilder("\"");
+            for (char c : value.toCharArray()) {
+                if (c == '"' || c == '\\') {
+                    sb.append('\\').append(c);
+                } else if (c == '\n') {
+                    sb.append("\\n");
+                } else if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.append('"').toString();
+        }
+    }
+}
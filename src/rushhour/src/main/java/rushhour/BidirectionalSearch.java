@@ -0,0 +1,231 @@
+package rushhour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+// Meet-in-the-middle breadth-first search. The backward side starts from every
+// goal configuration the puzzle could reach; since every slide can be undone,
+// searching backward is the same as searching forward from those seeds.
+//
+// Each round expands one whole layer of the smaller frontier. A child already
+// seen by the other side closes a path; the cheapest path over the layer is
+// optimal because both sides are exact breadth-first distances.
+class BidirectionalSearch {
+    private final Layout layout;
+    private final int seedLimit;
+    private final NodeArena forwardNodes;
+    private final NodeArena backwardNodes;
+    private final NodeMap forward;
+    private final NodeMap backward;
+    private final SearchMetrics metrics;
+    private long expanded = 0;
+    private int seeds = 0;
+    private long placed = 0; // enumerateGoals calls to place, to poll stopped
+
+    BidirectionalSearch(Layout layout, int seedLimit, SearchMetrics metrics) {
+        this.layout = layout;
+        this.seedLimit = seedLimit;
+        this.metrics = metrics;
+        this.forwardNodes = new NodeArena(layout.getWords());
+        this.backwardNodes = new NodeArena(layout.getWords());
+        this.forward = new NodeMap(forwardNodes);
+        this.backward = new NodeMap(backwardNodes);
+    }
+
+    // Goal configurations that keep every lane's pieces in their initial order,
+    // or null if there are more than the seed limit. Throws CancellationException once
+    // stopped returns true: most placements tried are not goals, so it can run long
+    List<State> enumerateGoals(long[] initialKey, BooleanSupplier stopped) {
+        int n = layout.getNumPieces();
+        Integer[] order = new Integer[n];
+        for (int k = 0; k < n; k++) order[k] = k;
+        // lane by lane in initial order, so keeping same-lane order is a neighbour check
+        Arrays.sort(order, (a, b) -> {
+            if (layout.isVertical(a) != layout.isVertical(b)) return layout.isVertical(a) ? 1 : -1;
+            if (layout.getLane(a) != layout.getLane(b)) return layout.getLane(a) - layout.getLane(b);
+            return layout.getOffset(initialKey, a) - layout.getOffset(initialKey, b);
+        });
+
+        List<State> goals = new ArrayList<>();
+        boolean[] occupied = new boolean[layout.getWidth() * layout.getHeight()];
+        long[] key = initialKey.clone();
+        return place(order, 0, key, occupied, goals, stopped) ? goals : null;
+    }
+
+    private boolean place(Integer[] order, int depth, long[] key, boolean[] occupied, List<State> goals,
+            BooleanSupplier stopped) {
+        if ((++placed & 0xFFF) == 0 && stopped.getAsBoolean()) {
+            throw new CancellationException("Goal enumeration stopped");
+        }
+        if (depth == order.length) {
+            if (goals.size() == seedLimit) return false;
+            goals.add(new State(layout, key.clone(), null, null, 0, 0));
+            return true;
+        }
+
+        int index = order[depth];
+        int low = 0;
+        int high = layout.getMaxOffset(index);
+        if (depth > 0) {
+            int previous = order[depth - 1];
+            if (layout.isVertical(previous) == layout.isVertical(index) && layout.getLane(previous) == layout.getLane(index)) {
+                low = layout.getOffset(key, previous) + layout.getLength(previous);
+            }
+        }
+        if (index == layout.getPrimaryIndex()) {
+            low = Math.max(low, layout.getGoalOffsetLow());
+            high = Math.min(high, layout.getGoalOffsetHigh());
+        }
+
+        for (int offset = low; offset <= high; offset++) {
+            if (!mark(index, offset, occupied, true)) continue;
+            layout.setOffset(key, index, offset);
+            boolean within = place(order, depth + 1, key, occupied, goals, stopped);
+            mark(index, offset, occupied, false);
+            if (!within) return false;
+        }
+        return true;
+    }
+
+    // Claims (or releases) the cells of a piece; false, with nothing claimed, on overlap
+    private boolean mark(int index, int offset, boolean[] occupied, boolean claim) {
+        int lane = layout.getLane(index);
+        int width = layout.getWidth();
+        int length = layout.getLength(index);
+        for (int x = offset; x < offset + length; x++) {
+            int cell = layout.isVertical(index) ? x * width + lane : lane * width + x;
+            if (claim && occupied[cell]) {
+                for (int y = offset; y < x; y++) {
+                    occupied[layout.isVertical(index) ? y * width + lane : lane * width + y] = false;
+                }
+                return false;
+            }
+            occupied[cell] = claim;
+        }
+        return true;
+    }
+
+    // Path from the initial state to a goal, shortest, or empty if no goal is reachable or
+    // the limit was reached first
+    List<State> search(State initialState, List<State> goals, SearchLimit limit) {
+        seeds = goals.size();
+        forward.put(forwardNodes.addRoot(initialState.key, 0), initialState.key);
+        for (State goal : goals) {
+            backward.put(backwardNodes.addRoot(goal.key, 0), goal.key);
+        }
+        MoveGenerator generator = new MoveGenerator(layout);
+
+        int meeting = backward.get(initialState.key);
+        if (meeting != NodeArena.NONE) return join(0, meeting, initialState, generator);
+
+        // a layer is the nodes its side added in one round, so a range of its arena
+        int forwardStart = 0;
+        int forwardEnd = 1;
+        int backwardStart = 0;
+        int backwardEnd = backwardNodes.size();
+        long[] key = new long[layout.getWords()];
+        long started = metrics.clock();
+        long retained = 0;
+        while (forwardStart < forwardEnd && backwardStart < backwardEnd) {
+            int frontier = forwardEnd - forwardStart + backwardEnd - backwardStart;
+            metrics.open(frontier);
+            boolean expandForward = forwardEnd - forwardStart <= backwardEnd - backwardStart;
+            NodeArena arena = expandForward ? forwardNodes : backwardNodes;
+            NodeMap own = expandForward ? forward : backward;
+            NodeMap other = expandForward ? backward : forward;
+            int[] best = {NodeArena.NONE, NodeArena.NONE}; // {own side, other side} of the cheapest meeting
+            int end = expandForward ? forwardEnd : backwardEnd;
+
+            for (int current = expandForward ? forwardStart : backwardStart; current < end; current++) {
+                if (limit.reached(expanded, frontier, Integer.MAX_VALUE)) {
+                    metrics.finish(started);
+                    return new ArrayList<>();
+                }
+                expanded++;
+                // every node of both sides stays in its arena and map
+                long now = getMemoryBytes();
+                limit.retain(now - retained);
+                retained = now;
+                int parent = current;
+                int g = arena.g(current);
+                arena.copyKey(current, key);
+                generator.load(key);
+                generator.forEachSuccessor((gen, pieceIndex, delta) -> {
+                    metrics.generated++;
+                    long t0 = metrics.clock();
+                    boolean duplicate = own.get(gen.getKey()) != NodeArena.NONE;
+                    metrics.hashNanos += metrics.clock() - t0;
+                    if (duplicate) {
+                        metrics.duplicates++;
+                        return;
+                    }
+                    // backward nodes record the forward move that leads back to their parent
+                    int child = arena.add(parent, gen.getKey(), pieceIndex, expandForward ? delta : -delta, g + 1, 0);
+                    long t1 = metrics.clock();
+                    own.put(child, gen.getKey());
+                    int match = other.get(gen.getKey());
+                    metrics.hashNanos += metrics.clock() - t1;
+
+                    if (match != NodeArena.NONE && (best[0] == NodeArena.NONE
+                            || g + 1 + cost(!expandForward, match) < cost(expandForward, best[0]) + cost(!expandForward, best[1]))) {
+                        best[0] = child;
+                        best[1] = match;
+                    }
+                });
+            }
+
+            if (best[0] != NodeArena.NONE) {
+                metrics.finish(started);
+                return expandForward ? join(best[0], best[1], initialState, generator)
+                        : join(best[1], best[0], initialState, generator);
+            }
+            if (expandForward) {
+                forwardStart = forwardEnd;
+                forwardEnd = forwardNodes.size();
+            } else {
+                backwardStart = backwardEnd;
+                backwardEnd = backwardNodes.size();
+            }
+        }
+        metrics.finish(started);
+        return new ArrayList<>();
+    }
+
+    private int cost(boolean forwardSide, int node) {
+        return (forwardSide ? forwardNodes : backwardNodes).g(node);
+    }
+
+    // The forward path to forwardNode, extended with the backward chain from backwardNode
+    // replayed forward
+    private List<State> join(int forwardNode, int backwardNode, State initialState, MoveGenerator generator) {
+        List<State> path = forwardNodes.path(forwardNode, initialState, generator);
+        State current = path.get(path.size() - 1);
+        for (int b = backwardNode; backwardNodes.parent(b) != NodeArena.NONE; b = backwardNodes.parent(b)) {
+            long[] key = new long[layout.getWords()];
+            backwardNodes.copyKey(backwardNodes.parent(b), key);
+            current = new State(layout, key, current, generator.getMove(backwardNodes.piece(b), backwardNodes.delta(b)),
+                    current.gCost + 1, 0);
+            path.add(current);
+        }
+        return path;
+    }
+
+    long getExpanded() {
+        return expanded;
+    }
+
+    int getSeeds() {
+        return seeds;
+    }
+
+    int getStored() {
+        return forward.size() + backward.size();
+    }
+
+    long getMemoryBytes() {
+        return forwardNodes.memoryBytes() + backwardNodes.memoryBytes() + forward.memoryBytes() + backward.memoryBytes();
+    }
+}
@@ -0,0 +1,253 @@
+package rushhour;
+
+import java.util.Arrays;
+
+// Lower bound on moves from the pieces that must move at least once. The primary
+// must move, and so must every blocker in front of it. A blocker has to leave
+// the primary lane towards one end of its own lane, and every piece on the cells
+// it slides through must move too; those pieces in turn must clear the blocker's
+// path, down to MAX_DEPTH levels. Each piece counts once, and the cheapest
+// choice of directions is taken, so the result never overestimates.
+//
+// Each thread also keeps the h of the placements it evaluated recently: IDA* evaluates
+// the same states again in every iteration, and A* every duplicate child.
+public final class BlockerGraphHeuristic implements Heuristic {
+    private static final int MAX_DEPTH = 3;
+
+    private static final int CACHED = 1 << 15; // evaluations kept per thread
+
+    // evaluate runs once per generated child, so each thread reuses one Search
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+    @Override
+    public int evaluate(LaneBoard board) {
+        Search search = searches.get();
+        int cached = search.cached(board);
+        if (cached >= 0) return cached;
+        return search.remember(board.getKey(), compute(board, search));
+    }
+
+    private static int compute(LaneBoard board, Search search) {
+        Layout layout = board.getLayout();
+        int p = layout.getPrimaryIndex();
+        boolean vertical = layout.isVertical(p);
+        int lane = layout.getLane(p);
+        int exit = vertical ? layout.getWinPosI() : layout.getWinPosJ();
+        if (lane != (vertical ? layout.getWinPosJ() : layout.getWinPosI())) return 0;
+        if (board.isGoal()) return 0;
+
+        int start = board.getOffset(p);
+        int end = start + layout.getLength(p) - 1;
+        int from = end < exit ? end + 1 : exit;
+        int to = end < exit ? exit : start - 1;
+
+        boolean bounded = layout.getNumPieces() <= Long.SIZE; // moved pieces are a long bitmask
+        search.reset(board);
+        long moved = 1L << p;
+        int count = 1;
+        int previous = -1;
+        for (int x = from; x <= to; x++) {
+            int owner = vertical ? board.getOwner(x, lane) : board.getOwner(lane, x);
+            if (owner == -1 || owner == previous) continue;
+            previous = owner;
+            count++;
+            moved |= 1L << owner;
+            // a blocker along the primary lane can never clear it; nothing more to add
+            if (bounded && layout.isVertical(owner) != vertical) {
+                search.push(owner, lane, lane, p, 1);
+            }
+        }
+        return bounded ? search.run(moved) : count;
+    }
+
+    @Override
+    public boolean isAdmissible() {
+        return true;
+    }
+
+    @Override
+    public int maxValue(Layout layout) {
+        return layout.getNumPieces();
+    }
+
+    // Depth-first choice of a direction for every pending "piece must leave
+    // cells [low, high] of its lane" demand, keeping the smallest set of moved pieces
+    private static final class Search {
+        private LaneBoard board;
+        private Layout layout;
+        private int[] piece = new int[16];
+        private int[] low = new int[16];
+        private int[] high = new int[16];
+        private int[] parent = new int[16];
+        private int[] depth = new int[16];
+        private int size = 0;
+        private int best = Integer.MAX_VALUE;
+
+        // Pieces on the path of each (piece, direction), memoized for the last demand
+        // seen: the same demand comes back in every branch of the choice tree
+        private long[] pathMask = new long[0];
+        private int[] pathLow = new int[0];
+        private int[] pathHigh = new int[0];
+        private int[] pathParent = new int[0];
+        private int[] pathFrom = new int[0]; // first cell the piece slides through, -1 if the direction is impossible
+        private int[] pathTo = new int[0];
+
+        // Results of earlier evaluations, direct-mapped on the key. The whole key is the
+        // occupancy that matters: demands reach any lane within MAX_DEPTH levels
+        private Layout cachedLayout;
+        private long[] cachedKeys = new long[0];
+        private final int[] cachedH = new int[CACHED]; // h + 1, 0 if empty
+        private int slot; // of the last lookup
+
+        // h of the board if this thread evaluated it recently, -1 otherwise
+        int cached(LaneBoard board) {
+            Layout layout = board.getLayout();
+            int words = layout.getWords();
+            if (layout != cachedLayout) {
+                cachedLayout = layout;
+                if (cachedKeys.length != CACHED * words) cachedKeys = new long[CACHED * words];
+                Arrays.fill(cachedH, 0);
+            }
+            long[] key = board.getKey();
+            slot = Layout.hash(key) & (CACHED - 1);
+            if (cachedH[slot] == 0) return -1;
+            int base = slot * words;
+            for (int w = 0; w < words; w++) {
+                if (cachedKeys[base + w] != key[w]) return -1;
+            }
+            return cachedH[slot] - 1;
+        }
+
+        // Stores h in the slot of the last lookup, replacing what was there
+        int remember(long[] key, int h) {
+            System.arraycopy(key, 0, cachedKeys, slot * key.length, key.length);
+            cachedH[slot] = h + 1;
+            return h;
+        }
+
+        // Empties the demands and the memo for a new evaluation of board
+        void reset(LaneBoard board) {
+            this.board = board;
+            this.layout = board.getLayout();
+            int slots = 2 * layout.getNumPieces();
+            if (pathLow.length < slots) {
+                pathMask = new long[slots];
+                pathLow = new int[slots];
+                pathHigh = new int[slots];
+                pathParent = new int[slots];
+                pathFrom = new int[slots];
+                pathTo = new int[slots];
+            }
+            Arrays.fill(pathLow, 0, slots, -1);
+            size = 0;
+            best = Integer.MAX_VALUE;
+        }
+
+        void push(int index, int cellLow, int cellHigh, int demandedBy, int level) {
+            if (size == piece.length) {
+                piece = Arrays.copyOf(piece, size << 1);
+                low = Arrays.copyOf(low, size << 1);
+                high = Arrays.copyOf(high, size << 1);
+                parent = Arrays.copyOf(parent, size << 1);
+                depth = Arrays.copyOf(depth, size << 1);
+            }
+            piece[size] = index;
+            low[size] = cellLow;
+            high[size] = cellHigh;
+            parent[size] = demandedBy;
+            depth[size] = level;
+            size++;
+        }
+
+        int run(long moved) {
+            search(0, moved);
+            return best;
+        }
+
+        private void search(int next, long moved) {
+            int count = Long.bitCount(moved);
+            if (count >= best) return;
+            if (next == size) {
+                best = count;
+                return;
+            }
+
+            boolean feasible = false;
+            for (int direction = 0; direction < 2; direction++) {
+                int slot = 2 * piece[next] + direction;
+                if (!path(next, slot)) continue;
+                feasible = true;
+
+                int pending = size;
+                if (depth[next] < MAX_DEPTH) {
+                    demandPathOwners(next, slot);
+                }
+                search(next + 1, moved | pathMask[slot]);
+                size = pending;
+            }
+            // cannot clear at all: the state is a dead end, any finite value is a valid bound
+            if (!feasible) search(next + 1, moved);
+        }
+
+        // Computes (or reuses) the path of the demand's piece in one direction; false if impossible
+        private boolean path(int demand, int slot) {
+            if (pathLow[slot] == low[demand] && pathHigh[slot] == high[demand] && pathParent[slot] == parent[demand]) {
+                return pathFrom[slot] != -1;
+            }
+            pathLow[slot] = low[demand];
+            pathHigh[slot] = high[demand];
+            pathParent[slot] = parent[demand];
+            pathFrom[slot] = -1;
+
+            int index = piece[demand];
+            int length = layout.getLength(index);
+            int offset = board.getOffset(index);
+            int laneLength = layout.isVertical(index) ? layout.getHeight() : layout.getWidth();
+            int from, to;
+            if ((slot & 1) == 0) {
+                // towards offset 0, ending just before the cleared cells
+                int target = low[demand] - length;
+                if (target < 0) return false;
+                from = target;
+                to = offset - 1;
+            } else {
+                int target = high[demand] + 1;
+                if (target + length > laneLength) return false;
+                from = offset + length;
+                to = target + length - 1;
+            }
+
+            long mask = 0;
+            int lane = layout.getLane(index);
+            for (int x = from; x <= to; x++) {
+                int owner = layout.isVertical(index) ? board.getOwner(x, lane) : board.getOwner(lane, x);
+                if (owner == -1) continue;
+                // pieces sharing a lane cannot pass each other
+                if (owner == parent[demand]) return false;
+                mask |= 1L << owner;
+            }
+            pathMask[slot] = mask;
+            pathFrom[slot] = from;
+            pathTo[slot] = to;
+            return true;
+        }
+
+        // Every piece on the chosen path must in turn get off it
+        private void demandPathOwners(int demand, int slot) {
+            int index = piece[demand];
+            boolean vertical = layout.isVertical(index);
+            int lane = layout.getLane(index);
+            int previous = -1;
+            for (int x = pathFrom[slot]; x <= pathTo[slot]; x++) {
+                int owner = vertical ? board.getOwner(x, lane) : board.getOwner(lane, x);
+                if (owner == -1 || owner == previous) continue;
+                previous = owner;
+                if (layout.isVertical(owner) == vertical) {
+                    push(owner, pathFrom[slot], pathTo[slot], index, depth[demand] + 1);
+                } else {
+                    push(owner, lane, lane, index, depth[demand] + 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package rushhour;
+
+// Distinct pieces between the primary piece and the exit, read along the primary lane
+public final class BlockingPieceHeuristic implements Heuristic {
+    @Override
+    public int evaluate(LaneBoard board) {
+        Layout layout = board.getLayout();
+        int p = layout.getPrimaryIndex();
+        boolean vertical = layout.isVertical(p);
+        int lane = layout.getLane(p);
+        int exit = vertical ? layout.getWinPosI() : layout.getWinPosJ();
+        if (lane != (vertical ? layout.getWinPosJ() : layout.getWinPosI())) return 0;
+
+        int start = board.getOffset(p);
+        int end = start + layout.getLength(p) - 1;
+        int from, to;
+        if (end < exit) {
+            from = end + 1; to = exit;
+        } else if (start > exit) {
+            from = exit; to = start - 1;
+        } else {
+            return 0;
+        }
+
+        int count = 0;
+        int previous = -1;
+        for (int x = from; x <= to; x++) {
+            int owner = vertical ? board.getOwner(x, lane) : board.getOwner(lane, x);
+            if (owner != -1 && owner != previous) count++;
+            previous = owner;
+        }
+        return count;
+    }
+
+    // Unchanged unless the primary moved or a crossing piece entered or left the
+    // stretch of lane in front of it
+    @Override
+    public int update(LaneBoard board, int parentH, int pieceIndex, int delta) {
+        Layout layout = board.getLayout();
+        int p = layout.getPrimaryIndex();
+        if (pieceIndex == p) return UNKNOWN;
+        boolean vertical = layout.isVertical(p);
+        int lane = layout.getLane(p);
+        if (lane != (vertical ? layout.getWinPosJ() : layout.getWinPosI())) return parentH;
+        // a piece along the primary lane can never pass the primary, so its side never changes
+        if (layout.isVertical(pieceIndex) == vertical) return parentH;
+
+        int exit = vertical ? layout.getWinPosI() : layout.getWinPosJ();
+        int start = board.getOffset(p);
+        int end = start + layout.getLength(p) - 1;
+        int crossing = layout.getLane(pieceIndex);
+        boolean inFront = end < exit ? crossing > end && crossing <= exit : crossing < start && crossing >= exit;
+        if (!inFront) return parentH;
+
+        int length = layout.getLength(pieceIndex);
+        int offset = board.getOffset(pieceIndex);
+        boolean coversNow = offset <= lane && lane < offset + length;
+        boolean coveredBefore = offset - delta <= lane && lane < offset - delta + length;
+        return coversNow == coveredBefore ? parentH : UNKNOWN;
+    }
+
+    @Override
+    public boolean isAdmissible() {
+        return true;
+    }
+
+    @Override
+    public int maxValue(Layout layout) {
+        return Math.max(layout.getWidth(), layout.getHeight());
+    }
+}
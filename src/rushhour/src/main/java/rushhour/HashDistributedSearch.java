@@ -0,0 +1,335 @@
+package rushhour;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Hash-distributed A* (HDA*). Every state has one owner thread, chosen from the
+// hash of its key. Owners keep their own NodeArena, best-g NodeMap and bucket open
+// list, the same structures as the sequential searches; generated states travel to
+// their owner through a lock-free inbox as packed messages (see message).
+//
+// A node's parent may live in another worker's arena, so parents are references
+// node * threads + worker. Paths are only followed after every worker has stopped.
+//
+// Workers keep expanding until no state anywhere can beat the best goal found,
+// so the result is optimal whenever the heuristic is admissible (always for UCS).
+// Termination: `outstanding` counts states that are queued, in an inbox or being
+// expanded. A state is counted before it is sent and released only after its
+// children are counted, so zero means no work is left anywhere.
+//
+// A worker with nothing to do parks until a sender or the last release wakes it, or
+// IDLE_NANOS pass, so it also sees the limit and other workers' failures.
+//
+// Scaling with cores is not measured. On one core, workers time-slicing out of f order
+// expand several times the nodes of the sequential search at 2 threads or more; see
+// ParallelBenchmark in rushhour-jmh for nodes and wall time per thread count.
+class HashDistributedSearch {
+    private static final long IDLE_NANOS = 1_000_000;
+    private static final long NO_INCUMBENT = (long) Integer.MAX_VALUE << 32 | (NodeArena.NONE & 0xFFFFFFFFL);
+
+    private final Layout layout;
+    private final int words;
+    private final int threads;
+    private final Heuristic heuristic;
+    private final boolean useHeuristic;
+    private final SearchLimit limit;
+    private final SearchMetrics metrics;
+
+    private final ConcurrentLinkedQueue<long[]>[] inboxes;
+    private final Worker[] workers;
+    private final AtomicLong outstanding = new AtomicLong();
+    // cost << 32 | reference of the best goal found, swapped as one so they always match
+    private final AtomicLong incumbent = new AtomicLong(NO_INCUMBENT);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLong totalExpanded = new AtomicLong();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    HashDistributedSearch(Layout layout, int threads, Heuristic heuristic, boolean useHeuristic, SearchLimit limit, SearchMetrics metrics) {
+        this.layout = layout;
+        this.words = layout.getWords();
+        this.threads = threads;
+        this.heuristic = heuristic;
+        this.useHeuristic = useHeuristic;
+        this.limit = limit;
+        this.metrics = metrics;
+        this.inboxes = new ConcurrentLinkedQueue[threads];
+        for (int t = 0; t < threads; t++) {
+            inboxes[t] = new ConcurrentLinkedQueue<>();
+        }
+        this.workers = new Worker[threads];
+    }
+
+    // Path from the initial state to an optimal goal, empty if the goal is unreachable or
+    // the limit was reached first (an incumbent found by then is not known to be optimal)
+    List<State> search(State initialState) {
+        outstanding.set(1);
+        inboxes[ownerOf(initialState.key)].add(message(initialState.key, NodeArena.NONE, NodeArena.NONE, 0, 0, initialState.hCost));
+
+        // every worker and its thread exist before any starts, so any can be woken
+        for (int t = 0; t < threads; t++) {
+            Worker worker = new Worker(t);
+            worker.thread = new Thread(() -> {
+                try {
+                    worker.run();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "hda-worker-" + t);
+            workers[t] = worker;
+        }
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("Parallel search failed", failure.get());
+        }
+        for (Worker worker : workers) {
+            metrics.add(worker.counters);
+        }
+        int goal = (int) incumbent.get();
+        if (limit.isReached() || goal == NodeArena.NONE) return new ArrayList<>();
+        return path(goal, initialState);
+    }
+
+    // Lowest-h state any worker expanded, or null if none did or the search ignores h
+    State getBestState(State initialState) {
+        Worker best = null;
+        for (Worker worker : workers) {
+            if (worker.closest == NodeArena.NONE) continue;
+            if (best == null || worker.arena.h(worker.closest) < best.arena.h(best.closest)) best = worker;
+        }
+        if (best == null) return null;
+        List<State> path = path(best.closest * threads + best.id, initialState);
+        return path.get(path.size() - 1);
+    }
+
+    long getExpanded() {
+        long total = 0;
+        for (Worker worker : workers) total += worker.expanded;
+        return total;
+    }
+
+    // States held in the workers' best-g tables
+    int getStored() {
+        int total = 0;
+        for (Worker worker : workers) total += worker.best.size();
+        return total;
+    }
+
+    long getMemoryBytes() {
+        long total = 0;
+        for (Worker worker : workers) total += worker.arena.memoryBytes() + worker.best.memoryBytes();
+        return total;
+    }
+
+    long getIncrementalEvaluations() {
+        long total = 0;
+        for (Worker worker : workers) total += worker.evaluator.getIncremental();
+        return total;
+    }
+
+    long getFullEvaluations() {
+        long total = 0;
+        for (Worker worker : workers) total += worker.evaluator.getFull();
+        return total;
+    }
+
+    // States from the initial state to the referenced node, across the workers' arenas
+    private List<State> path(int reference, State initialState) {
+        List<Integer> chain = new ArrayList<>();
+        for (int r = reference; r != NodeArena.NONE; r = workers[r % threads].arena.parent(r / threads)) {
+            chain.add(r);
+        }
+        MoveGenerator generator = new MoveGenerator(layout);
+        List<State> path = new ArrayList<>(chain.size());
+        State current = initialState;
+        path.add(current);
+        // the last link is the root, which is initialState itself
+        for (int i = chain.size() - 2; i >= 0; i--) {
+            NodeArena arena = workers[chain.get(i) % threads].arena;
+            int node = chain.get(i) / threads;
+            long[] key = new long[words];
+            arena.copyKey(node, key);
+            current = new State(layout, key, current, generator.getMove(arena.piece(node), arena.delta(node)),
+                    arena.g(node), arena.h(node));
+            path.add(current);
+        }
+        return path;
+    }
+
+    // A state on its way to its owner: its key, then parent << 32 | g, then h << 32 | move,
+    // the move packed as in NodeArena (NONE for the root)
+    private long[] message(long[] key, int parent, int piece, int delta, int g, int h) {
+        long[] message = new long[words + 2];
+        System.arraycopy(key, 0, message, 0, words);
+        int move = piece == NodeArena.NONE ? NodeArena.NONE : piece << 8 | (delta & 0xFF);
+        message[words] = (long) parent << 32 | (g & 0xFFFFFFFFL);
+        message[words + 1] = (long) h << 32 | (move & 0xFFFFFFFFL);
+        return message;
+    }
+
+    private int ownerOf(long[] key) {
+        // high bits of the hash, so the low bits stay well spread inside each owner's table
+        return (int) (((Layout.hash(key) & 0xFFFFFFFFL) * threads) >>> 32);
+    }
+
+    private int incumbentCost() {
+        return (int) (incumbent.get() >>> 32);
+    }
+
+    private void send(int owner, long[] message) {
+        inboxes[owner].add(message);
+        Worker worker = workers[owner];
+        if (worker.idle) LockSupport.unpark(worker.thread);
+    }
+
+    // Done with one outstanding state; the last one wakes every worker to finish
+    private void release() {
+        if (outstanding.decrementAndGet() == 0) {
+            for (Worker worker : workers) {
+                LockSupport.unpark(worker.thread);
+            }
+        }
+    }
+
+    private int priority(int g, int h) {
+        return useHeuristic ? g + h : g;
+    }
+
+    private final class Worker {
+        private final int id;
+        private final NodeArena arena = new NodeArena(words);
+        private final NodeMap best = new NodeMap(arena);
+        private final NodeQueue open = new NodeBucketQueue(
+                useHeuristic ? NodeBucketQueue.TieBreak.HIGH_G : NodeBucketQueue.TieBreak.LIFO, arena);
+        private final MoveGenerator generator = new MoveGenerator(layout);
+        private final HeuristicEvaluator evaluator = new HeuristicEvaluator(heuristic);
+        private final SearchMetrics counters = new SearchMetrics(metrics.isTimed());
+        private final long[] key = new long[words];
+        private final long[] incoming = new long[words];
+        private long expanded = 0;
+        private int closest = NodeArena.NONE; // lowest-h node this worker expanded
+        private long retained = 0;
+        private Thread thread;
+        // set while parked or about to park; senders only unpark idle workers
+        private volatile boolean idle = false;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        void run() {
+            ConcurrentLinkedQueue<long[]> inbox = inboxes[id];
+            long started = counters.clock();
+            while (outstanding.get() > 0 && failure.get() == null && !limit.isReached()) {
+                long[] received;
+                while ((received = inbox.poll()) != null) {
+                    receive(received);
+                }
+
+                counters.open(open.size());
+                long polling = counters.clock();
+                int current = open.poll();
+                counters.queueNanos += counters.clock() - polling;
+                if (current == NodeArena.NONE) {
+                    park(inbox);
+                    continue;
+                }
+                arena.copyKey(current, key);
+                int g = arena.g(current);
+                int h = arena.h(current);
+                if (best.get(key) != current || priority(g, h) >= incumbentCost()) {
+                    // superseded by a cheaper copy, or cannot beat the incumbent
+                    release();
+                    continue;
+                }
+                if (layout.isGoal(key)) {
+                    offerGoal(current * threads + id, g);
+                    release();
+                    continue;
+                }
+
+                if (limit.reached(totalExpanded.getAndIncrement(), outstanding.get(), h)) break;
+                expanded++;
+                if (useHeuristic && (closest == NodeArena.NONE || h < arena.h(closest))) closest = current;
+                int parent = current * threads + id;
+                generator.load(key);
+                generator.forEachSuccessor((gen, pieceIndex, delta) -> {
+                    counters.generated++;
+                    long evaluating = counters.clock();
+                    int childH = useHeuristic ? evaluator.child(gen.getBoard(), h, pieceIndex, delta) : 0;
+                    counters.heuristicNanos += counters.clock() - evaluating;
+                    if (g + 1 + childH >= incumbentCost()) return;
+                    outstanding.incrementAndGet();
+                    int owner = ownerOf(gen.getKey());
+                    if (owner == id) {
+                        receive(gen.getKey(), parent, pieceIndex, delta, g + 1, childH);
+                    } else {
+                        send(owner, message(gen.getKey(), parent, pieceIndex, delta, g + 1, childH));
+                    }
+                });
+                release();
+
+                // own nodes and table; only the sum over all workers is meaningful
+                long now = arena.memoryBytes() + best.memoryBytes();
+                limit.retain(now - retained);
+                retained = now;
+            }
+            counters.finish(started);
+        }
+
+        // idle is set before the inbox is checked again, so a sender either sees it or
+        // added its state before the check; an unpark before the park is not lost
+        private void park(ConcurrentLinkedQueue<long[]> inbox) {
+            idle = true;
+            if (inbox.isEmpty() && outstanding.get() > 0) LockSupport.parkNanos(this, IDLE_NANOS);
+            idle = false;
+        }
+
+        // the key is copied out because hashing covers the whole array
+        private void receive(long[] message) {
+            System.arraycopy(message, 0, incoming, 0, words);
+            int move = (int) message[words + 1];
+            receive(incoming, (int) (message[words] >>> 32), move == NodeArena.NONE ? NodeArena.NONE : move >>> 8,
+                    (byte) move, (int) message[words], (int) (message[words + 1] >>> 32));
+        }
+
+        private void receive(long[] key, int parent, int piece, int delta, int g, int h) {
+            long t0 = counters.clock();
+            int known = best.get(key);
+            if (known != NodeArena.NONE && arena.g(known) <= g) {
+                counters.hashNanos += counters.clock() - t0;
+                counters.duplicates++;
+                release();
+                return;
+            }
+            int node = arena.add(parent, key, piece, delta, g, h);
+            best.put(node, key);
+            long t1 = counters.clock();
+            open.add(node, priority(g, h));
+            counters.hashNanos += t1 - t0;
+            counters.queueNanos += counters.clock() - t1;
+        }
+
+        private void offerGoal(int reference, int cost) {
+            while (true) {
+                long current = incumbent.get();
+                if (cost >= (int) (current >>> 32)) return;
+                if (incumbent.compareAndSet(current, (long) cost << 32 | (reference & 0xFFFFFFFFL))) return;
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package rushhour;
+
+import java.util.function.BooleanSupplier;
+
+// Lower-bound estimate of the moves left to solve a board. Implementations are
+// stateless or thread-safe, so one instance can serve any number of concurrent solves.
+public interface Heuristic {
+    // update result that asks the caller for a full evaluate
+    int UNKNOWN = -1;
+
+    int evaluate(LaneBoard board);
+
+    // h of the board after the piece slid by delta, given h before the slide,
+    // or UNKNOWN if it cannot be derived cheaply
+    default int update(LaneBoard board, int parentH, int pieceIndex, int delta) {
+        return UNKNOWN;
+    }
+
+    // True if evaluate never exceeds the moves actually left, so A* and IDA* find shortest paths
+    default boolean isAdmissible() {
+        return false;
+    }
+
+    // The heuristic to use for every board of this board's layout within one search, so
+    // per-layout state is resolved once and not on every evaluation; the same values as this
+    default Heuristic forLayout(LaneBoard board) {
+        return this;
+    }
+
+    // As forLayout(board), throwing CancellationException once stopped returns true; for
+    // heuristics with long per-layout work, such as building a table
+    default Heuristic forLayout(LaneBoard board, BooleanSupplier stopped) {
+        return forLayout(board);
+    }
+
+    // Largest value evaluate can return on this layout, or -1 if it is not bounded; Solver
+    // sizes greedy bucket queues from it and uses a heap instead when it is -1
+    int maxValue(Layout layout);
+}
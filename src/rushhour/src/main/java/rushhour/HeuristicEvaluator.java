@@ -0,0 +1,39 @@
+package rushhour;
+
+// Child h from the parent's h through Heuristic.update, falling back to a full
+// evaluate, and counts how often each path was taken. One per search thread, so the
+// heuristic bound to the layout (Heuristic.forLayout) is kept here without locking.
+final class HeuristicEvaluator {
+    private final Heuristic heuristic;
+    private Layout layout;
+    private Heuristic bound;
+    private long incremental = 0;
+    private long full = 0;
+
+    HeuristicEvaluator(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    // I.S.: the board holds the child, reached by sliding pieceIndex by delta
+    int child(LaneBoard board, int parentH, int pieceIndex, int delta) {
+        if (board.getLayout() != layout) {
+            layout = board.getLayout();
+            bound = heuristic.forLayout(board);
+        }
+        int h = bound.update(board, parentH, pieceIndex, delta);
+        if (h != Heuristic.UNKNOWN) {
+            incremental++;
+            return h;
+        }
+        full++;
+        return bound.evaluate(board);
+    }
+
+    long getIncremental() {
+        return incremental;
+    }
+
+    long getFull() {
+        return full;
+    }
+}
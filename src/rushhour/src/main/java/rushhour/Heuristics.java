@@ -1,88 +1,54 @@
 package rushhour;
 
-import java.util.HashSet;
-import java.util.Set;
-
-public class Heuristics {
-    // MANHATTAN
-    public static String heuristicType;
-
-    public static int calculateH(State state) {
-        if (heuristicType.equals("MANHATTAN")) {
-            return manhattanDistance(state);
-        } 
-        else if (heuristicType.equals("BLOCKING_PIECE_COUNT")){
-            return blockingPieceCount(state);
-        }
-        return 0; // Default case, should not happen
+// Shared heuristic instances and lookup by name
+public final class Heuristics {
+    public static final Heuristic NONE = new ZeroHeuristic();
+    public static final Heuristic MANHATTAN = new ManhattanHeuristic();
+    public static final Heuristic BLOCKING_PIECE_COUNT = new BlockingPieceHeuristic();
+    public static final Heuristic BLOCKER_GRAPH = new BlockerGraphHeuristic();
+    public static final Heuristic PATTERN_DATABASE = new PatternDatabaseHeuristic(
+            PatternDatabaseHeuristic.defaultDirectory(), PatternDatabaseHeuristic.DEFAULT_MAX_ENTRIES);
+
+    private Heuristics() {
     }
 
-    private static int manhattanDistance(State state) {
-        int goalI = state.boardConfiguration.getWinPosI();
-        int goalJ = state.boardConfiguration.getWinPosJ();
-        int pieceITop = state.primaryPieceRef.getPosI();
-        int pieceIBottom = state.primaryPieceRef.getPosI() + state.primaryPieceRef.getHeight() - 1;
-        int pieceJLeft = state.primaryPieceRef.getPosJ();
-        int pieceJRight = state.primaryPieceRef.getPosJ() + state.primaryPieceRef.getWidth() - 1;
-        
-        int dx = 0;
-        if (goalI < pieceITop) {
-            dx = pieceITop - goalI;
-        } else if (goalI > pieceIBottom) {
-            dx = goalI - pieceIBottom;
+    // Accepts "MANHATTAN", "BLOCKING_PIECE_COUNT", "BLOCKER_GRAPH" or "PATTERN_DATABASE" in any case, with spaces for
+    // underscores (as shown in the UI); a null or blank name means no heuristic
+    public static Heuristic forName(String name) {
+        if (name == null || name.isBlank()) {
+            return NONE;
         }
-        int dy = 0;
-        if (goalJ < pieceJLeft) {
-            dy = pieceJLeft - goalJ;
-        } else if (goalJ > pieceJRight) {
-            dy = goalJ - pieceJRight;
+        switch (name.trim().toUpperCase().replace(' ', '_')) {
+            case "NONE":
+                return NONE;
+            case "MANHATTAN":
+                return MANHATTAN;
+            case "BLOCKING_PIECE_COUNT":
+                return BLOCKING_PIECE_COUNT;
+            case "BLOCKER_GRAPH":
+                return BLOCKER_GRAPH;
+            case "PATTERN_DATABASE":
+                return PATTERN_DATABASE;
+            default:
+                throw new IllegalArgumentException("Unknown heuristic: " + name
+                        + ". Expected: MANHATTAN, BLOCKING_PIECE_COUNT, BLOCKER_GRAPH, PATTERN_DATABASE or NONE");
         }
-        return dx + dy;
     }
 
-    private static int blockingPieceCount(State state) {
-        PrimaryPiece p = state.primaryPieceRef;
-        Board board = state.boardConfiguration;
-        int goalI = board.getWinPosI();
-        int goalJ = board.getWinPosJ();
-        Set<Piece> distinctPiece = new HashSet<>();
-
-        if (p.isVertical()){
-            if (p.getPosJ() != goalJ) return 0; 
-
-            int pieceTopEdge = p.getPosI();
-            int pieceBottomEdge = p.getPosI() + p.getHeight() - 1;
-
-            if (pieceBottomEdge < goalJ) { 
-                for (int r = pieceBottomEdge + 1; r <= goalJ; r++) { 
-                    Piece pp = board.getPieceAt(r, p.getPosJ());
-                    if (pp != null) distinctPiece.add(pp);
-                }
-            } else if (pieceTopEdge > goalJ) { 
-                for (int r = pieceTopEdge - 1; r >= goalJ; r--) { 
-                    Piece pp = board.getPieceAt(r, p.getPosJ());
-                    if (pp != null) distinctPiece.add(pp);
-                }
-            }
-        }
-        else {
-            if (p.getPosI() != goalI) return 0;
-
-            int pieceLeftEdge = p.getPosJ();
-            int pieceRightEdge = p.getPosJ() + p.getWidth() - 1;
+    // The forName name of a heuristic, stable across releases for keys that outlive a run
+    // (the solution cache file); other implementations go by class name
+    public static String nameOf(Heuristic heuristic) {
+        if (heuristic instanceof ZeroHeuristic) return "NONE";
+        if (heuristic instanceof ManhattanHeuristic) return "MANHATTAN";
+        if (heuristic instanceof BlockingPieceHeuristic) return "BLOCKING_PIECE_COUNT";
+        if (heuristic instanceof BlockerGraphHeuristic) return "BLOCKER_GRAPH";
+        if (heuristic instanceof PatternDatabaseHeuristic) return "PATTERN_DATABASE";
+        return heuristic.getClass().getName();
+    }
 
-            if (pieceRightEdge < goalJ) {
-                for (int c = pieceRightEdge + 1; c <= goalJ; c++) {
-                    Piece pp = board.getPieceAt(p.getPosI(), c);
-                    if (pp != null) distinctPiece.add(pp);
-                }
-            } else if (pieceLeftEdge > goalJ) {
-                for (int c = pieceLeftEdge - 1; c >= goalJ; c--) {
-                    Piece pp = board.getPieceAt(p.getPosI(), c);
-                    if (pp != null) distinctPiece.add(pp);
-                }
-            }
-        }
-        return distinctPiece.size();
+    public static int evaluate(Heuristic heuristic, State state) {
+        LaneBoard board = new LaneBoard(state.layout);
+        board.load(state.key);
+        return heuristic.evaluate(board);
     }
 }
@@ -0,0 +1,32 @@
+package rushhour;
+
+// Work done by one iteration of IDA*: its f bound, the states it expanded, and
+// how many of those had f within the previous bound (work repeated from earlier iterations)
+public class IterationStats {
+    private final int bound;
+    private final long expanded;
+    private final long reexpanded;
+
+    public IterationStats(int bound, long expanded, long reexpanded) {
+        this.bound = bound;
+        this.expanded = expanded;
+        this.reexpanded = reexpanded;
+    }
+
+    public int getBound() {
+        return bound;
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    public long getReexpanded() {
+        return reexpanded;
+    }
+
+    @Override
+    public String toString() {
+        return "bound " + bound + ": expanded " + expanded + ", re-expanded " + reexpanded;
+    }
+}
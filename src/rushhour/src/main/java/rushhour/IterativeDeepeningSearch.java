@@ -0,0 +1,238 @@
+package rushhour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// IDA*: repeated depth-first searches with a growing bound on f = g + h. Only the
+// current path is kept (as piece/delta pairs), so memory is the depth of the
+// solution plus the optional fixed-size transposition table.
+class IterativeDeepeningSearch {
+    private final Layout layout;
+    private final MoveGenerator generator;
+    private final HeuristicEvaluator evaluator;
+    private final TranspositionTable table; // null disables duplicate pruning
+    private final List<IterationStats> iterations = new ArrayList<>();
+    private final SearchMetrics metrics;
+    private final MovePruning pruning;
+
+    private int bound;
+    private int previousBound;
+    private int nextBound;
+    private int iteration;
+    private boolean found;
+    private int solutionLength;
+    private int[] pathPiece;
+    private int[] pathDelta;
+    // path to the lowest-h state expanded in any iteration
+    private int closestH = Integer.MAX_VALUE;
+    private int[] closestPiece = new int[0];
+    private int[] closestDelta = new int[0];
+    private long expanded;
+    private long reexpanded;
+    private long totalExpanded;
+    private SearchLimit limit;
+    private long retained; // bytes reported to the limit
+
+    // Proof that a puzzle is unsolvable, tracked while it fits in the table's size:
+    // if every state cut off by the bound was also expanded in the same iteration,
+    // the expanded states are closed under moves and none of them is a goal
+    private final VisitedSet expandedStates;
+    private final VisitedSet cutoffStates;
+    private final long[] cutoff; // cutoffStates in insertion order
+    private int cutoffSize;
+    private boolean complete;
+
+    // pruning is at least SAME_PIECE: two slides of one piece in a row are never shorter than one
+    IterativeDeepeningSearch(Layout layout, Heuristic heuristic, int tableSize, MovePruning pruning, SearchMetrics metrics) {
+        this.layout = layout;
+        this.metrics = metrics;
+        this.pruning = pruning == MovePruning.NONE ? MovePruning.SAME_PIECE : pruning;
+        this.evaluator = new HeuristicEvaluator(heuristic);
+        this.generator = new MoveGenerator(layout);
+        this.table = tableSize > 0 ? new TranspositionTable(layout.getWords(), tableSize) : null;
+        this.expandedStates = table != null ? new VisitedSet(layout.getWords()) : null;
+        this.cutoffStates = table != null ? new VisitedSet(layout.getWords()) : null;
+        this.cutoff = new long[table != null ? table.capacity() * layout.getWords() : 0];
+    }
+
+    // Returns the goal state of an optimal path (for an admissible heuristic), or null if none
+    // exists or the limit was reached first
+    State search(State initialState, SearchLimit limit) {
+        this.limit = limit;
+        retained = getMemoryBytes();
+        limit.retain(retained);
+        long started = metrics.clock();
+        State goal = deepen(initialState);
+        metrics.finish(started);
+        return goal;
+    }
+
+    private State deepen(State initialState) {
+        bound = initialState.hCost;
+        previousBound = -1;
+        while (true) {
+            iteration++;
+            nextBound = Integer.MAX_VALUE;
+            found = false;
+            expanded = 0;
+            reexpanded = 0;
+            cutoffSize = 0;
+            complete = table != null;
+            if (complete) {
+                expandedStates.clear();
+                cutoffStates.clear();
+            }
+            pathPiece = new int[bound + 1];
+            pathDelta = new int[bound + 1];
+
+            generator.load(initialState.key);
+            dfs(0, initialState.hCost, -1);
+            iterations.add(new IterationStats(bound, expanded, reexpanded));
+            // the sets behind the unsolvability proof grow up to the table's size
+            limit.retain(getMemoryBytes() - retained);
+            retained = getMemoryBytes();
+
+            if (found) return replay(initialState, pathPiece, pathDelta, solutionLength, 0);
+            if (limit.isReached()) return null;
+            if (nextBound == Integer.MAX_VALUE || exhausted()) return null;
+            previousBound = bound;
+            bound = nextBound;
+        }
+    }
+
+    // I.S.: the generator board holds the state at depth g
+    private void dfs(int g, int h, int lastPiece) {
+        // a state this iteration already reached no deeper adds nothing, not even to the next bound;
+        // without this an unsolvable puzzle would raise the bound forever
+        if (table != null) {
+            long probing = metrics.clock();
+            boolean seen = table.contains(generator.getKey(), g, iteration);
+            metrics.hashNanos += metrics.clock() - probing;
+            if (seen) {
+                metrics.duplicates++;
+                return;
+            }
+        }
+        int f = g + h;
+        if (f > bound) {
+            nextBound = Math.min(nextBound, f);
+            if (complete) recordCutoff();
+            return;
+        }
+        if (generator.getBoard().isGoal()) {
+            found = true;
+            solutionLength = g;
+            return;
+        }
+        if (table != null) {
+            long storing = metrics.clock();
+            table.store(generator.getKey(), g, iteration);
+            metrics.hashNanos += metrics.clock() - storing;
+        }
+        if (complete) {
+            expandedStates.add(generator.getKey());
+            if (expandedStates.size() > table.capacity()) complete = false;
+        }
+
+        if (limit.reached(totalExpanded, g + 1, h)) return;
+        totalExpanded++;
+        if (h < closestH) {
+            closestH = h;
+            closestPiece = Arrays.copyOf(pathPiece, g);
+            closestDelta = Arrays.copyOf(pathDelta, g);
+        }
+        expanded++;
+        if (f <= previousBound) reexpanded++;
+        // the path is IDA*'s whole frontier
+        metrics.open(g + 1);
+        int lastTo = lastPiece >= 0 ? generator.getBoard().getOffset(lastPiece) : 0;
+        int lastFrom = lastPiece >= 0 ? lastTo - pathDelta[g - 1] : 0;
+        generator.forEachSuccessor((gen, pieceIndex, delta) -> {
+            if (found || limit.isReached()) return;
+            int to = gen.getBoard().getOffset(pieceIndex);
+            if (pruning.skip(layout, lastPiece, lastFrom, lastTo, pieceIndex, to - delta, to)) {
+                metrics.pruned++;
+                return;
+            }
+            metrics.generated++;
+            pathPiece[g] = pieceIndex;
+            pathDelta[g] = delta;
+            long evaluating = metrics.clock();
+            int childH = evaluator.child(gen.getBoard(), h, pieceIndex, delta);
+            metrics.heuristicNanos += metrics.clock() - evaluating;
+            dfs(g + 1, childH, pieceIndex);
+        });
+    }
+
+    private void recordCutoff() {
+        int words = layout.getWords();
+        if (!cutoffStates.add(generator.getKey())) return;
+        if (cutoffSize + words > cutoff.length) {
+            complete = false;
+            return;
+        }
+        System.arraycopy(generator.getKey(), 0, cutoff, cutoffSize, words);
+        cutoffSize += words;
+    }
+
+    // True if every state cut off in this iteration was expanded elsewhere in it,
+    // so the expanded states are closed under moves and hold no goal
+    private boolean exhausted() {
+        if (!complete) return false;
+        int words = layout.getWords();
+        long[] key = new long[words];
+        for (int base = 0; base < cutoffSize; base += words) {
+            System.arraycopy(cutoff, base, key, 0, words);
+            if (!expandedStates.contains(key)) return false;
+        }
+        return true;
+    }
+
+    // Rebuilds the states of the first length moves; the last one gets lastH
+    private State replay(State initialState, int[] pieces, int[] deltas, int length, int lastH) {
+        State current = initialState;
+        long[] key = initialState.key.clone();
+        for (int d = 0; d < length; d++) {
+            int index = pieces[d];
+            layout.setOffset(key, index, layout.getOffset(key, index) + deltas[d]);
+            current = new State(layout, key.clone(), current, generator.getMove(index, deltas[d]), d + 1,
+                    d + 1 == length ? lastH : 0);
+        }
+        return current;
+    }
+
+    // Lowest-h state expanded by the last search, the initial state if it expanded nothing
+    State getBestState(State initialState) {
+        if (closestH >= initialState.hCost) return initialState;
+        return replay(initialState, closestPiece, closestDelta, closestPiece.length, closestH);
+    }
+
+    long getExpanded() {
+        long total = 0;
+        for (IterationStats stats : iterations) total += stats.getExpanded();
+        return total;
+    }
+
+    long getIncrementalEvaluations() {
+        return evaluator.getIncremental();
+    }
+
+    long getFullEvaluations() {
+        return evaluator.getFull();
+    }
+
+    List<IterationStats> getIterations() {
+        return iterations;
+    }
+
+    long getTableBytes() {
+        return table != null ? table.memoryBytes() : 0;
+    }
+
+    // Transposition table plus the sets behind the unsolvability proof
+    long getMemoryBytes() {
+        if (table == null) return 0;
+        return table.memoryBytes() + expandedStates.memoryBytes() + cutoffStates.memoryBytes() + 8L * cutoff.length;
+    }
+}
@@ -0,0 +1,151 @@
+package rushhour;
+
+import java.util.Arrays;
+
+// Search-time board: one occupancy bitmask per row and per column, plus the
+// offset of every piece. A piece only ever moves along its own lane, so its
+// legal slides come straight from that lane's mask through a SlideTable.
+public class LaneBoard {
+    public static final int MAX_LANE_LENGTH = Long.SIZE;
+
+    private final Layout layout;
+    private final int width, height;
+    private final long[] rowMask;
+    private final long[] colMask;
+    private final int[] owner; // piece index per cell (i * width + j), -1 if empty
+    private final int[] offsets;
+    private final long[] key;
+    private final SlideTable rowTable, colTable;
+
+    public LaneBoard(Layout layout) {
+        this.layout = layout;
+        this.width = layout.getWidth();
+        this.height = layout.getHeight();
+        if (width > MAX_LANE_LENGTH || height > MAX_LANE_LENGTH) {
+            throw new IllegalArgumentException("Board too large: " + height + "x" + width
+                    + ". Expected: at most " + MAX_LANE_LENGTH + " cells per row and column");
+        }
+        this.rowMask = new long[height];
+        this.colMask = new long[width];
+        this.owner = new int[width * height];
+        this.offsets = new int[layout.getNumPieces()];
+        this.key = new long[layout.getWords()];
+        this.rowTable = SlideTable.forLength(width);
+        this.colTable = SlideTable.forLength(height);
+    }
+
+    public void load(long[] stateKey) {
+        System.arraycopy(stateKey, 0, key, 0, key.length);
+        Arrays.fill(rowMask, 0L);
+        Arrays.fill(colMask, 0L);
+        Arrays.fill(owner, -1);
+        for (int k = 0; k < offsets.length; k++) {
+            offsets[k] = layout.getOffset(key, k);
+            fill(k, true);
+        }
+    }
+
+    // Number of free cells the piece can slide towards offset 0
+    public int getSlideBackward(int index) {
+        int lane = layout.getLane(index);
+        if (layout.isVertical(index)) {
+            return colTable.freeBelow(colMask[lane], offsets[index]);
+        }
+        return rowTable.freeBelow(rowMask[lane], offsets[index]);
+    }
+
+    // Number of free cells the piece can slide away from offset 0
+    public int getSlideForward(int index) {
+        int lane = layout.getLane(index);
+        int end = offsets[index] + layout.getLength(index) - 1;
+        if (layout.isVertical(index)) {
+            return colTable.freeAbove(colMask[lane], end);
+        }
+        return rowTable.freeAbove(rowMask[lane], end);
+    }
+
+    // Slides one cell (direction -1 or +1); only the leaving and entering cells change.
+    // I.S.: the entering cell is free
+    public void step(int index, int direction) {
+        int lane = layout.getLane(index);
+        int start = offsets[index];
+        int leaving = direction > 0 ? start : start + layout.getLength(index) - 1;
+        int entering = direction > 0 ? start + layout.getLength(index) : start - 1;
+        if (layout.isVertical(index)) {
+            colMask[lane] ^= (1L << leaving) | (1L << entering);
+            rowMask[leaving] &= ~(1L << lane);
+            rowMask[entering] |= 1L << lane;
+            owner[leaving * width + lane] = -1;
+            owner[entering * width + lane] = index;
+        } else {
+            rowMask[lane] ^= (1L << leaving) | (1L << entering);
+            colMask[leaving] &= ~(1L << lane);
+            colMask[entering] |= 1L << lane;
+            owner[lane * width + leaving] = -1;
+            owner[lane * width + entering] = index;
+        }
+        offsets[index] = start + direction;
+        layout.setOffset(key, index, start + direction);
+    }
+
+    // I.S.: every cell of the target position is free or already owned by the piece
+    public void moveTo(int index, int offset) {
+        fill(index, false);
+        offsets[index] = offset;
+        layout.setOffset(key, index, offset);
+        fill(index, true);
+    }
+
+    private void fill(int index, boolean occupied) {
+        int lane = layout.getLane(index);
+        int start = offsets[index];
+        int end = start + layout.getLength(index);
+        for (int x = start; x < end; x++) {
+            int i = layout.isVertical(index) ? x : lane;
+            int j = layout.isVertical(index) ? lane : x;
+            if (occupied) {
+                rowMask[i] |= 1L << j;
+                colMask[j] |= 1L << i;
+                owner[i * width + j] = index;
+            } else {
+                rowMask[i] &= ~(1L << j);
+                colMask[j] &= ~(1L << i);
+                owner[i * width + j] = -1;
+            }
+        }
+    }
+
+    public boolean isGoal() {
+        return layout.isGoal(key);
+    }
+
+    public boolean isOccupied(int i, int j) {
+        return (rowMask[i] & (1L << j)) != 0;
+    }
+
+    // Piece index at the cell, -1 if empty
+    public int getOwner(int i, int j) {
+        return owner[i * width + j];
+    }
+
+    public long getRowMask(int i) {
+        return rowMask[i];
+    }
+
+    public long getColMask(int j) {
+        return colMask[j];
+    }
+
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    // Key of the current configuration; copy it before keeping it
+    public long[] getKey() {
+        return key;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+}
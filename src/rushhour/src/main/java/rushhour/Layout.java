@@ -0,0 +1,173 @@
+package rushhour;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Static description of a puzzle: board size, exit, and the lane of every piece.
+// A state is identified by the offset of each piece along its lane, packed into
+// one or more longs (see encode / getOffset / setOffset).
+public class Layout {
+    private int width, height;
+    private int winPosI, winPosJ;
+    private int numPieces;
+    private int primaryIndex;
+
+    private char[] colors;
+    private boolean[] vertical;
+    private int[] lane;
+    private int[] length;
+    private int[] maxOffset;
+
+    // key packing
+    private int words;
+    private int[] word;
+    private int[] shift;
+    private long[] fieldMask;
+
+    // offsets of the primary piece that cover the exit cell
+    private int goalOffsetLow, goalOffsetHigh;
+
+    public Layout(Board board, List<Piece> pieces) {
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+        this.winPosI = board.getWinPosI();
+        this.winPosJ = board.getWinPosJ();
+        this.numPieces = pieces.size();
+        this.primaryIndex = -1;
+
+        this.colors = new char[numPieces];
+        this.vertical = new boolean[numPieces];
+        this.lane = new int[numPieces];
+        this.length = new int[numPieces];
+        this.maxOffset = new int[numPieces];
+        this.word = new int[numPieces];
+        this.shift = new int[numPieces];
+        this.fieldMask = new long[numPieces];
+
+        int currentWord = 0;
+        int usedBits = 0;
+        for (int k = 0; k < numPieces; k++) {
+            Piece p = pieces.get(k);
+            colors[k] = p.getColor();
+            vertical[k] = p.isVertical();
+            lane[k] = p.getLane();
+            length[k] = p.isVertical() ? p.getHeight() : p.getWidth();
+            maxOffset[k] = (p.isVertical() ? height : width) - length[k];
+            if (p instanceof PrimaryPiece) {
+                primaryIndex = k;
+            }
+
+            int bits = 32 - Integer.numberOfLeadingZeros(maxOffset[k]);
+            if (usedBits + bits > Long.SIZE) {
+                currentWord++;
+                usedBits = 0;
+            }
+            word[k] = currentWord;
+            shift[k] = usedBits;
+            fieldMask[k] = bits == 0 ? 0L : ((1L << bits) - 1) << usedBits;
+            usedBits += bits;
+        }
+        this.words = currentWord + 1;
+
+        if (primaryIndex == -1) {
+            throw new IllegalArgumentException("Layout has no primary piece");
+        }
+        int exit = vertical[primaryIndex] ? winPosI : winPosJ;
+        this.goalOffsetLow = Math.max(0, exit - length[primaryIndex] + 1);
+        this.goalOffsetHigh = Math.min(maxOffset[primaryIndex], exit);
+    }
+
+    public long[] encode(List<Piece> pieces) {
+        long[] key = new long[words];
+        for (int k = 0; k < numPieces; k++) {
+            setOffset(key, k, pieces.get(k).getOffset());
+        }
+        return key;
+    }
+
+    // Rebuilds the pieces of a key, in layout order
+    public List<Piece> createPieces(long[] key) {
+        List<Piece> pieces = new ArrayList<>(numPieces);
+        for (int k = 0; k < numPieces; k++) {
+            int offset = getOffset(key, k);
+            int i = vertical[k] ? offset : lane[k];
+            int j = vertical[k] ? lane[k] : offset;
+            int w = vertical[k] ? 1 : length[k];
+            int h = vertical[k] ? length[k] : 1;
+            pieces.add(k == primaryIndex ? new PrimaryPiece(colors[k], w, h, i, j) : new Piece(colors[k], w, h, i, j));
+        }
+        return pieces;
+    }
+
+    public Board createBoard() {
+        return new Board(width, height, winPosI, winPosJ);
+    }
+
+    public int getOffset(long[] key, int index) {
+        return (int) ((key[word[index]] & fieldMask[index]) >>> shift[index]);
+    }
+
+    // Incremental update: only the field of the moved piece changes
+    public void setOffset(long[] key, int index, int offset) {
+        int w = word[index];
+        key[w] = (key[w] & ~fieldMask[index]) | (((long) offset << shift[index]) & fieldMask[index]);
+    }
+
+    public boolean isGoal(long[] key) {
+        int offset = getOffset(key, primaryIndex);
+        return offset >= goalOffsetLow && offset <= goalOffsetHigh;
+    }
+
+    public static int hash(long[] key) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (long w : key) {
+            h = (h ^ w) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public int getWords() {
+        return words;
+    }
+    public int getWidth() {
+        return width;
+    }
+    public int getHeight() {
+        return height;
+    }
+    public int getWinPosI() {
+        return winPosI;
+    }
+    public int getWinPosJ() {
+        return winPosJ;
+    }
+    public int getNumPieces() {
+        return numPieces;
+    }
+    public int getPrimaryIndex() {
+        return primaryIndex;
+    }
+    public char getColor(int index) {
+        return colors[index];
+    }
+    public boolean isVertical(int index) {
+        return vertical[index];
+    }
+    public int getLane(int index) {
+        return lane[index];
+    }
+    public int getLength(int index) {
+        return length[index];
+    }
+    public int getMaxOffset(int index) {
+        return maxOffset[index];
+    }
+    // Primary offsets that count as solved
+    public int getGoalOffsetLow() {
+        return goalOffsetLow;
+    }
+    public int getGoalOffsetHigh() {
+        return goalOffsetHigh;
+    }
+}
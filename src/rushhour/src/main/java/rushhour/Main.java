@@ -45,8 +45,7 @@ public class Main {
         board.buildBoard(pieces);
         System.out.println(board.toString());
 
-        Solver solver = new Solver(board, pieces, primaryP);
-        Heuristics.heuristicType = "MANHATTAN"; // Set heuristic type
+        Solver solver = new Solver(board, pieces, primaryP, Heuristics.MANHATTAN);
         solver.solve(SearchMode.UCS);
     }
 }
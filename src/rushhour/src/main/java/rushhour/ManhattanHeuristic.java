@@ -0,0 +1,44 @@
+package rushhour;
+
+// Cells between the primary piece and the exit. Counts cells rather than moves,
+// so it can overestimate when one slide covers several cells.
+public final class ManhattanHeuristic implements Heuristic {
+    @Override
+    public int evaluate(LaneBoard board) {
+        Layout layout = board.getLayout();
+        int p = layout.getPrimaryIndex();
+        int goalI = layout.getWinPosI();
+        int goalJ = layout.getWinPosJ();
+        int start = board.getOffset(p);
+        int end = start + layout.getLength(p) - 1;
+        int pieceITop = layout.isVertical(p) ? start : layout.getLane(p);
+        int pieceIBottom = layout.isVertical(p) ? end : layout.getLane(p);
+        int pieceJLeft = layout.isVertical(p) ? layout.getLane(p) : start;
+        int pieceJRight = layout.isVertical(p) ? layout.getLane(p) : end;
+        
+        int dx = 0;
+        if (goalI < pieceITop) {
+            dx = pieceITop - goalI;
+        } else if (goalI > pieceIBottom) {
+            dx = goalI - pieceIBottom;
+        }
+        int dy = 0;
+        if (goalJ < pieceJLeft) {
+            dy = pieceJLeft - goalJ;
+        } else if (goalJ > pieceJRight) {
+            dy = goalJ - pieceJRight;
+        }
+        return dx + dy;
+    }
+
+    // Only the primary piece's position matters
+    @Override
+    public int update(LaneBoard board, int parentH, int pieceIndex, int delta) {
+        return pieceIndex == board.getLayout().getPrimaryIndex() ? UNKNOWN : parentH;
+    }
+
+    @Override
+    public int maxValue(Layout layout) {
+        return layout.getWidth() + layout.getHeight();
+    }
+}
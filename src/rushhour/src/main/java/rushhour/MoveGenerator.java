@@ -0,0 +1,70 @@
+package rushhour;
+
+// Enumerates the successors of a state by sliding pieces in place on one working
+// LaneBoard. Nothing is copied per move: each slide is applied, reported to the
+// visitor, and reverted. One generator per solve (and per thread).
+public class MoveGenerator {
+    private final Layout layout;
+    private final LaneBoard board;
+    private final Move[] backwardMoves;
+    private final Move[] forwardMoves;
+
+    public MoveGenerator(Layout layout) {
+        this.layout = layout;
+        this.board = new LaneBoard(layout);
+
+        int n = layout.getNumPieces();
+        this.backwardMoves = new Move[n];
+        this.forwardMoves = new Move[n];
+        for (int k = 0; k < n; k++) {
+            boolean vertical = layout.isVertical(k);
+            backwardMoves[k] = new Move(layout.getColor(k), vertical ? "UP" : "LEFT");
+            forwardMoves[k] = new Move(layout.getColor(k), vertical ? "DOWN" : "RIGHT");
+        }
+    }
+
+    // Puts the working board into the configuration of the given key
+    public void load(long[] stateKey) {
+        board.load(stateKey);
+    }
+
+    // Re-entrant: a visitor may enumerate the successors of the child it is given
+    public void forEachSuccessor(SuccessorVisitor visitor) {
+        int n = layout.getNumPieces();
+        for (int index = 0; index < n; index++) {
+            int back = board.getSlideBackward(index);
+            int forward = board.getSlideForward(index);
+            if (back == 0 && forward == 0) continue;
+            int origin = board.getOffset(index);
+
+            for (int d = 1; d <= back; d++) {
+                board.step(index, -1);
+                visitor.visit(this, index, -d);
+            }
+            if (back != 0) board.moveTo(index, origin);
+
+            for (int d = 1; d <= forward; d++) {
+                board.step(index, 1);
+                visitor.visit(this, index, d);
+            }
+            if (forward != 0) board.moveTo(index, origin);
+        }
+    }
+
+    // Key of the configuration currently on the board; copy it before keeping it
+    public long[] getKey() {
+        return board.getKey();
+    }
+
+    public LaneBoard getBoard() {
+        return board;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public Move getMove(int pieceIndex, int delta) {
+        return delta < 0 ? backwardMoves[pieceIndex] : forwardMoves[pieceIndex];
+    }
+}
@@ -0,0 +1,132 @@
+package rushhour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Search nodes as parallel primitive arrays instead of one State object each: packed
+// key, parent index, last move, g and h. A node is its index. Storage grows one chunk
+// at a time, so adding never copies the nodes already stored. Only the path the search
+// returns is turned back into States (path).
+public class NodeArena {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int MASK = CHUNK - 1;
+    static final int NONE = -1;
+
+    private final int words;
+    private long[][] keys = new long[16][];
+    private int[][] parents = new int[16][];
+    private int[][] moves = new int[16][]; // piece << 8 | slide as a signed byte, NONE for a root
+    private int[][] gs = new int[16][];
+    private int[][] hs = new int[16][];
+    private int size = 0;
+
+    public NodeArena(int words) {
+        this.words = words;
+    }
+
+    // Root node of a search: no parent, no move
+    public int addRoot(long[] key, int h) {
+        return add(NONE, key, NONE, 0, 0, h);
+    }
+
+    // I.S.: -128 <= delta <= 127, piece < 2^23
+    public int add(int parent, long[] key, int piece, int delta, int g, int h) {
+        int chunk = size >>> CHUNK_BITS;
+        int slot = size & MASK;
+        if (slot == 0) grow(chunk);
+        System.arraycopy(key, 0, keys[chunk], slot * words, words);
+        parents[chunk][slot] = parent;
+        moves[chunk][slot] = piece == NONE ? NONE : piece << 8 | (delta & 0xFF);
+        gs[chunk][slot] = g;
+        hs[chunk][slot] = h;
+        return size++;
+    }
+
+    private void grow(int chunk) {
+        if (chunk == keys.length) {
+            int capacity = chunk << 1;
+            keys = Arrays.copyOf(keys, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+            gs = Arrays.copyOf(gs, capacity);
+            hs = Arrays.copyOf(hs, capacity);
+        }
+        keys[chunk] = new long[CHUNK * words];
+        parents[chunk] = new int[CHUNK];
+        moves[chunk] = new int[CHUNK];
+        gs[chunk] = new int[CHUNK];
+        hs[chunk] = new int[CHUNK];
+    }
+
+    public int parent(int node) {
+        return parents[node >>> CHUNK_BITS][node & MASK];
+    }
+
+    public int g(int node) {
+        return gs[node >>> CHUNK_BITS][node & MASK];
+    }
+
+    public int h(int node) {
+        return hs[node >>> CHUNK_BITS][node & MASK];
+    }
+
+    // Piece the move into node slid, NONE for a root
+    public int piece(int node) {
+        int move = moves[node >>> CHUNK_BITS][node & MASK];
+        return move == NONE ? NONE : move >>> 8;
+    }
+
+    // Signed slide of that move, 0 for a root
+    public int delta(int node) {
+        int move = moves[node >>> CHUNK_BITS][node & MASK];
+        return move == NONE ? 0 : (byte) move;
+    }
+
+    public void copyKey(int node, long[] target) {
+        System.arraycopy(keys[node >>> CHUNK_BITS], (node & MASK) * words, target, 0, words);
+    }
+
+    public boolean keyEquals(int node, long[] key) {
+        long[] chunk = keys[node >>> CHUNK_BITS];
+        int base = (node & MASK) * words;
+        for (int w = 0; w < words; w++) {
+            if (chunk[base + w] != key[w]) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    // Allocated chunks, whether filled or not
+    public long memoryBytes() {
+        long chunks = (size + MASK) >>> CHUNK_BITS;
+        return chunks * CHUNK * (8L * words + 16);
+    }
+
+    // States from the root to node, the root being root itself; moves come from generator
+    public List<State> path(int node, State root, MoveGenerator generator) {
+        int length = 0;
+        for (int n = node; parent(n) != NONE; n = parent(n)) length++;
+        int[] chain = new int[length];
+        for (int n = node, i = length - 1; i >= 0; n = parent(n), i--) chain[i] = n;
+
+        List<State> path = new ArrayList<>(length + 1);
+        State current = root;
+        path.add(current);
+        for (int n : chain) {
+            long[] key = new long[words];
+            copyKey(n, key);
+            current = new State(root.layout, key, current, generator.getMove(piece(n), delta(n)), g(n), h(n));
+            path.add(current);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,134 @@
+package rushhour;
+
+import java.util.Arrays;
+
+// Dial's bucket queue over NodeArena indices: one bucket per integer priority, each a
+// plain int deque, so add and poll are O(1) amortized instead of O(log n). Priorities
+// must be non-negative; the bucket array grows on demand. Ties inside a bucket are
+// broken by TieBreak; HIGH_G reads each node's g from the arena.
+public class NodeBucketQueue implements NodeQueue {
+    public enum TieBreak {
+        FIFO, LIFO,
+        // prefer the deepest state (largest g), LIFO among equal g
+        HIGH_G
+    }
+
+    private final TieBreak tieBreak;
+    private final NodeArena arena;
+    private Bucket[][] buckets;
+    private int[] counts;
+    private int[] topSub;
+    private int cursor = 0;
+    private int size = 0;
+
+    public NodeBucketQueue(TieBreak tieBreak, NodeArena arena) {
+        this(tieBreak, arena, 64);
+    }
+
+    // capacity: one more than the largest priority expected; larger ones still grow the array
+    public NodeBucketQueue(TieBreak tieBreak, NodeArena arena, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Bucket capacity must be positive, but found: " + capacity);
+        }
+        this.tieBreak = tieBreak;
+        this.arena = arena;
+        this.buckets = new Bucket[capacity][];
+        this.counts = new int[capacity];
+        this.topSub = new int[capacity];
+    }
+
+    @Override
+    public void add(int node, int priority) {
+        if (priority < 0) {
+            throw new IllegalArgumentException("Bucket priority must be non-negative, but found: " + priority);
+        }
+        if (priority >= buckets.length) {
+            int capacity = Math.max(buckets.length << 1, priority + 1);
+            buckets = Arrays.copyOf(buckets, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            topSub = Arrays.copyOf(topSub, capacity);
+        }
+
+        int sub = tieBreak == TieBreak.HIGH_G ? arena.g(node) : 0;
+        Bucket[] row = buckets[priority];
+        if (row == null || sub >= row.length) {
+            row = row == null ? new Bucket[Math.max(1, sub + 1)] : Arrays.copyOf(row, Math.max(row.length << 1, sub + 1));
+            buckets[priority] = row;
+        }
+        if (row[sub] == null) {
+            row[sub] = new Bucket();
+        }
+        row[sub].addLast(node);
+
+        if (counts[priority]++ == 0 || sub > topSub[priority]) {
+            topSub[priority] = sub;
+        }
+        if (priority < cursor) {
+            cursor = priority;
+        }
+        size++;
+    }
+
+    @Override
+    public int poll() {
+        if (size == 0) return NodeArena.NONE;
+        while (counts[cursor] == 0) {
+            cursor++;
+        }
+        Bucket[] row = buckets[cursor];
+        int sub = topSub[cursor];
+        while (row[sub] == null || row[sub].isEmpty()) {
+            sub--;
+        }
+        topSub[cursor] = sub;
+        counts[cursor]--;
+        size--;
+        return tieBreak == TieBreak.FIFO ? row[sub].pollFirst() : row[sub].pollLast();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Array-backed ring deque of ints
+    private static final class Bucket {
+        private int[] items = new int[8];
+        private int head = 0;
+        private int count = 0;
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        void addLast(int node) {
+            if (count == items.length) {
+                int[] grown = new int[items.length << 1];
+                for (int k = 0; k < count; k++) {
+                    grown[k] = items[(head + k) & (items.length - 1)];
+                }
+                items = grown;
+                head = 0;
+            }
+            items[(head + count) & (items.length - 1)] = node;
+            count++;
+        }
+
+        int pollFirst() {
+            int node = items[head];
+            head = (head + 1) & (items.length - 1);
+            count--;
+            return node;
+        }
+
+        int pollLast() {
+            count--;
+            return items[(head + count) & (items.length - 1)];
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package rushhour;
+
+import java.util.Arrays;
+
+// Binary min-heap of nodes, each packed with its priority into one long. Equal
+// priorities come out lowest node first, which is the order they were added in.
+// Used when priorities are not small bounded integers.
+public class NodeHeap implements NodeQueue {
+    private long[] heap = new long[1 << 10];
+    private int size = 0;
+
+    @Override
+    public void add(int node, int priority) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size << 1);
+        }
+        long entry = (long) priority << 32 | (node & 0xFFFFFFFFL);
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    @Override
+    public int poll() {
+        if (size == 0) return NodeArena.NONE;
+        int node = (int) heap[0];
+        long last = heap[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return node;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
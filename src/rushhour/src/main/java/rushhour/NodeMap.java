@@ -0,0 +1,79 @@
+package rushhour;
+
+import java.util.Arrays;
+
+// Open-addressing map from packed state key to a node of a NodeArena. Slots hold the
+// node index and its key's hash only: keys stay in the arena, which is read solely
+// when the hashes match. Same linear probing as VisitedSet.
+public class NodeMap {
+    private static final double LOAD_FACTOR = 0.5;
+
+    private final NodeArena arena;
+    private int[] nodes; // NodeArena.NONE marks an empty slot
+    private int[] hashes;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    public NodeMap(NodeArena arena) {
+        this.arena = arena;
+        allocate(1 << 10);
+    }
+
+    // Node stored under key, NodeArena.NONE if there is none
+    public int get(long[] key) {
+        return nodes[findSlot(key, Layout.hash(key))];
+    }
+
+    // Stores node under its key, replacing any node with an equal key
+    public void put(int node, long[] key) {
+        int hash = Layout.hash(key);
+        int slot = findSlot(key, hash);
+        boolean added = nodes[slot] == NodeArena.NONE;
+        nodes[slot] = node;
+        hashes[slot] = hash;
+        if (added && ++size > threshold) {
+            resize();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long memoryBytes() {
+        return 8L * nodes.length;
+    }
+
+    private int findSlot(long[] key, int hash) {
+        int slot = hash & mask;
+        while (nodes[slot] != NodeArena.NONE && (hashes[slot] != hash || !arena.keyEquals(nodes[slot], key))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        nodes = new int[capacity];
+        Arrays.fill(nodes, NodeArena.NONE);
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Keys of distinct slots are distinct, so moving them needs only the stored hashes
+    private void resize() {
+        int[] oldNodes = nodes;
+        int[] oldHashes = hashes;
+        allocate(nodes.length << 1);
+        for (int slot = 0; slot < oldNodes.length; slot++) {
+            if (oldNodes[slot] == NodeArena.NONE) continue;
+            int target = oldHashes[slot] & mask;
+            while (nodes[target] != NodeArena.NONE) {
+                target = (target + 1) & mask;
+            }
+            nodes[target] = oldNodes[slot];
+            hashes[target] = oldHashes[slot];
+        }
+    }
+}
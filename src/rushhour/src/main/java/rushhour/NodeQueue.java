@@ -0,0 +1,10 @@
+package rushhour;
+
+// Frontier of a best-first search over NodeArena indices; lower priority is polled first
+public interface NodeQueue {
+    void add(int node, int priority);
+    // NodeArena.NONE if empty
+    int poll();
+    boolean isEmpty();
+    int size();
+}
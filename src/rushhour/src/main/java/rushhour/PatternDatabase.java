@@ -0,0 +1,317 @@
+package rushhour;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+// Exact move counts of an abstraction that keeps only the primary piece and a few
+// pieces around its lane; every other piece is taken off the board. Any real
+// solution is also a solution of the abstraction (the removed pieces only get in
+// the way), so the stored distance is an admissible and consistent lower bound.
+//
+// Entry index = sum of offset * stride over the pattern pieces, one byte each,
+// filled by a breadth-first search from every abstract goal. Slides are
+// reversible, so distances from the goal set equal distances to it.
+final class PatternDatabase {
+    static final int UNREACHABLE = 0xFF;
+    static final int MAX_DISTANCE = UNREACHABLE - 1;
+
+    private static final int MAGIC = 0x52485044; // "RHPD"
+    private static final int VERSION = 1;
+
+    private final String signature;
+    private final int[] pieces; // layout indices, primary first
+    private final int[] strides;
+    private final boolean[] inPattern;
+    private final int size;
+    private final ByteBuffer distances; // null for a pattern without its table
+
+    private PatternDatabase(Layout layout, int[] pieces) {
+        this.pieces = pieces;
+        this.strides = new int[pieces.length];
+        this.inPattern = new boolean[layout.getNumPieces()];
+        int stride = 1;
+        for (int k = 0; k < pieces.length; k++) {
+            strides[k] = stride;
+            stride *= layout.getMaxOffset(pieces[k]) + 1;
+            inPattern[pieces[k]] = true;
+        }
+        this.size = stride;
+        this.signature = signature(layout, pieces);
+        this.distances = null;
+    }
+
+    private PatternDatabase(PatternDatabase pattern, ByteBuffer distances) {
+        this.signature = pattern.signature;
+        this.pieces = pattern.pieces;
+        this.strides = pattern.strides;
+        this.inPattern = pattern.inPattern;
+        this.size = pattern.size;
+        this.distances = distances;
+    }
+
+    // Pattern for the board's layout, chosen around the primary lane of this board.
+    // Nothing is built yet; see load and withTable.
+    static PatternDatabase select(LaneBoard board, int maxEntries) {
+        Layout layout = board.getLayout();
+        int p = layout.getPrimaryIndex();
+        long entries = layout.getMaxOffset(p) + 1;
+        if (entries > maxEntries) {
+            throw new IllegalArgumentException("Pattern database needs at least " + entries
+                    + " entries for the primary piece alone, but found: " + maxEntries);
+        }
+
+        // Crossing pieces between the primary and the exit first, then the rest by
+        // their distance to that stretch of lane
+        List<Integer> candidates = new ArrayList<>();
+        int[] tier = new int[layout.getNumPieces()];
+        int[] distance = new int[layout.getNumPieces()];
+        int[] front = frontRectangle(board);
+        for (int k = 0; k < layout.getNumPieces(); k++) {
+            if (k == p) continue;
+            int[] cells = rectangle(board, k);
+            distance[k] = Math.max(0, Math.max(front[0] - cells[1], cells[0] - front[1]))
+                    + Math.max(0, Math.max(front[2] - cells[3], cells[2] - front[3]));
+            boolean crossing = layout.isVertical(k) != layout.isVertical(p)
+                    && layout.getLane(k) >= (layout.isVertical(k) ? front[2] : front[0])
+                    && layout.getLane(k) <= (layout.isVertical(k) ? front[3] : front[1]);
+            tier[k] = crossing ? 0 : 1;
+            candidates.add(k);
+        }
+        candidates.sort(Comparator.<Integer>comparingInt(k -> tier[k]).thenComparingInt(k -> distance[k]));
+
+        List<Integer> chosen = new ArrayList<>();
+        chosen.add(p);
+        for (int k : candidates) {
+            long next = entries * (layout.getMaxOffset(k) + 1);
+            if (next > maxEntries) continue;
+            entries = next;
+            chosen.add(k);
+        }
+        return new PatternDatabase(layout, chosen.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // Maps the table stored for this pattern in the directory, or builds it and
+    // stores it there first. A null directory, or one that cannot be written,
+    // keeps the table in memory. Throws CancellationException once stopped returns true.
+    ByteBuffer load(Layout layout, Path directory, BooleanSupplier stopped) {
+        if (directory != null) {
+            Path file = directory.resolve(fileName());
+            try {
+                ByteBuffer table = Files.exists(file) ? map(file) : null;
+                if (table != null) return table;
+                write(file, build(layout, stopped));
+                table = map(file);
+                if (table != null) return table;
+            } catch (IOException e) {
+                // not fatal: the heuristic only loses reuse across runs
+            }
+        }
+        return ByteBuffer.wrap(build(layout, stopped));
+    }
+
+    // This pattern with its table, loaded for any layout with the same signature
+    PatternDatabase withTable(ByteBuffer table) {
+        return new PatternDatabase(this, table);
+    }
+
+    // I.S.: has a table (withTable)
+    int lookup(LaneBoard board) {
+        int index = 0;
+        for (int k = 0; k < pieces.length; k++) {
+            index += board.getOffset(pieces[k]) * strides[k];
+        }
+        return distances.get(index) & 0xFF;
+    }
+
+    boolean contains(int pieceIndex) {
+        return inPattern[pieceIndex];
+    }
+
+    String getSignature() {
+        return signature;
+    }
+
+    int getPatternSize() {
+        return pieces.length;
+    }
+
+    int getEntries() {
+        return size;
+    }
+
+    private byte[] build(Layout layout, BooleanSupplier stopped) {
+        Layout abstraction = abstraction(layout);
+        int n = pieces.length;
+        int[] radix = new int[n];
+        for (int k = 0; k < n; k++) {
+            radix[k] = abstraction.getMaxOffset(k) + 1;
+        }
+
+        byte[] table = new byte[size];
+        Arrays.fill(table, (byte) UNREACHABLE);
+        int[] queue = new int[size];
+        int tail = 0;
+
+        // every legal configuration with the primary (abstract piece 0) on the exit
+        int[] offsets = new int[n];
+        for (int index = 0; index < size; index++) {
+            checkStopped(index, stopped);
+            if (offsets[0] >= abstraction.getGoalOffsetLow() && offsets[0] <= abstraction.getGoalOffsetHigh()
+                    && fits(abstraction, offsets)) {
+                table[index] = 0;
+                queue[tail++] = index;
+            }
+            for (int k = 0; k < n && ++offsets[k] == radix[k]; k++) {
+                offsets[k] = 0;
+            }
+        }
+
+        MoveGenerator generator = new MoveGenerator(abstraction);
+        long[] key = new long[abstraction.getWords()];
+        int[] end = {tail};
+        for (int head = 0; head < end[0]; head++) {
+            checkStopped(head, stopped);
+            int index = queue[head];
+            for (int k = 0, rest = index; k < n; k++) {
+                abstraction.setOffset(key, k, rest % radix[k]);
+                rest /= radix[k];
+            }
+            byte next = (byte) Math.min(MAX_DISTANCE, (table[index] & 0xFF) + 1);
+            generator.load(key);
+            generator.forEachSuccessor((gen, pieceIndex, delta) -> {
+                int child = index + delta * strides[pieceIndex];
+                if (table[child] == (byte) UNREACHABLE) {
+                    table[child] = next;
+                    queue[end[0]++] = child;
+                }
+            });
+        }
+        return table;
+    }
+
+    // Polled every 64K entries, cheap next to the work in between
+    private static void checkStopped(int step, BooleanSupplier stopped) {
+        if ((step & 0xFFFF) == 0 && stopped.getAsBoolean()) {
+            throw new CancellationException("Pattern database build stopped");
+        }
+    }
+
+    // Layout of the pattern pieces alone, with abstract index k for pieces[k]
+    private Layout abstraction(Layout layout) {
+        List<Piece> all = layout.createPieces(new long[layout.getWords()]);
+        List<Piece> kept = new ArrayList<>(pieces.length);
+        for (int index : pieces) {
+            kept.add(all.get(index));
+        }
+        return new Layout(layout.createBoard(), kept);
+    }
+
+    private static boolean fits(Layout abstraction, int[] offsets) {
+        long[] rows = new long[abstraction.getHeight()];
+        for (int k = 0; k < offsets.length; k++) {
+            int lane = abstraction.getLane(k);
+            for (int x = offsets[k]; x < offsets[k] + abstraction.getLength(k); x++) {
+                int i = abstraction.isVertical(k) ? x : lane;
+                int j = abstraction.isVertical(k) ? lane : x;
+                if ((rows[i] & (1L << j)) != 0) return false;
+                rows[i] |= 1L << j;
+            }
+        }
+        return true;
+    }
+
+    private void write(Path file, byte[] table) throws IOException {
+        Files.createDirectories(file.getParent());
+        byte[] header = header();
+        Path temp = Files.createTempFile(file.getParent(), "pdb-", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, header.length + table.length);
+            buffer.put(header);
+            buffer.put(table);
+            buffer.force();
+        }
+        // concurrent builders of the same pattern write identical files, so the last move wins harmlessly
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Distances of a stored table, or null if the file holds another pattern or is truncated
+    private ByteBuffer map(Path file) throws IOException {
+        byte[] header = header();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < header.length) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] stored = new byte[header.length];
+            buffer.get(stored);
+            if (!Arrays.equals(stored, header) || buffer.remaining() != size) return null;
+            return buffer.slice();
+        }
+    }
+
+    private byte[] header() {
+        byte[] text = signature.getBytes(StandardCharsets.US_ASCII);
+        return ByteBuffer.allocate(12 + text.length).putInt(MAGIC).putInt(VERSION).putInt(text.length).put(text).array();
+    }
+
+    // Everything the table depends on: board size, exit, and lane, length and orientation
+    // of each pattern piece. Puzzles that agree on these share one table.
+    private static String signature(Layout layout, int[] pieces) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(layout.getHeight()).append('x').append(layout.getWidth())
+                .append('@').append(layout.getWinPosI()).append(',').append(layout.getWinPosJ());
+        for (int index : pieces) {
+            sb.append(';').append(layout.isVertical(index) ? 'V' : 'H')
+                    .append(',').append(layout.getLane(index))
+                    .append(',').append(layout.getLength(index))
+                    .append(',').append(layout.getMaxOffset(index) + 1);
+        }
+        return sb.toString();
+    }
+
+    private String fileName() {
+        long h = 1125899906842597L;
+        for (int i = 0; i < signature.length(); i++) {
+            h = 31 * h + signature.charAt(i);
+        }
+        return "pdb-" + Long.toHexString(h) + ".bin";
+    }
+
+    // Cells [rowLow, rowHigh, colLow, colHigh] between the primary and the exit, along
+    // the primary lane; the primary's own cells if it already reaches the exit
+    private static int[] frontRectangle(LaneBoard board) {
+        Layout layout = board.getLayout();
+        int p = layout.getPrimaryIndex();
+        boolean vertical = layout.isVertical(p);
+        int lane = layout.getLane(p);
+        int exit = vertical ? layout.getWinPosI() : layout.getWinPosJ();
+        int start = board.getOffset(p);
+        int end = start + layout.getLength(p) - 1;
+        int from = end < exit ? end + 1 : Math.min(exit, start);
+        int to = end < exit ? exit : Math.max(exit, start - 1);
+        if (to < from) {
+            from = start;
+            to = end;
+        }
+        return vertical ? new int[] {from, to, lane, lane} : new int[] {lane, lane, from, to};
+    }
+
+    private static int[] rectangle(LaneBoard board, int index) {
+        Layout layout = board.getLayout();
+        int lane = layout.getLane(index);
+        int start = board.getOffset(index);
+        int end = start + layout.getLength(index) - 1;
+        return layout.isVertical(index) ? new int[] {start, end, lane, lane} : new int[] {lane, lane, start, end};
+    }
+}
@@ -0,0 +1,151 @@
+package rushhour;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+// Pattern database lookup (see PatternDatabase). The table for a layout is built on
+// its first evaluation and kept as a memory-mapped file in the directory, so later
+// runs on puzzles with the same board, exit and pattern lanes only map it.
+// Thread-safe: the tables are read-only once loaded. Searches look their table up once
+// through forLayout; evaluate and update on this object look it up on every call.
+public final class PatternDatabaseHeuristic implements Heuristic {
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 22;
+    private static final int CACHED_TABLES = 4;
+    private static final BooleanSupplier NEVER = () -> false;
+
+    private final Path directory; // null keeps the tables in memory only
+    private final int maxEntries;
+    // the only references to tables outside running searches
+    private final Map<String, ByteBuffer> tables = new LinkedHashMap<String, ByteBuffer>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ByteBuffer> eldest) {
+            return size() > CACHED_TABLES;
+        }
+    };
+    // one pattern per layout, chosen on its first board; mixing patterns would break update.
+    // Patterns carry no table, so this keeps none alive
+    private final Map<Layout, PatternDatabase> patterns = Collections.synchronizedMap(new WeakHashMap<>());
+    // one lock per signature being built, so a build only holds up solves needing that table
+    private final ConcurrentHashMap<String, Object> builds = new ConcurrentHashMap<>();
+
+    public PatternDatabaseHeuristic(Path directory, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Pattern database needs at least 1 entry, but found: " + maxEntries);
+        }
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+    }
+
+    // rushhour.pdb.dir if set, otherwise rushhour-pdb under the temporary directory
+    public static Path defaultDirectory() {
+        String dir = System.getProperty("rushhour.pdb.dir");
+        return dir != null ? Paths.get(dir) : Paths.get(System.getProperty("java.io.tmpdir"), "rushhour-pdb");
+    }
+
+    @Override
+    public int evaluate(LaneBoard board) {
+        return database(board, NEVER).lookup(board);
+    }
+
+    @Override
+    public int update(LaneBoard board, int parentH, int pieceIndex, int delta) {
+        return update(database(board, NEVER), board, parentH, pieceIndex);
+    }
+
+    // Pieces outside the pattern do not exist in the abstraction
+    private static int update(PatternDatabase database, LaneBoard board, int parentH, int pieceIndex) {
+        return database.contains(pieceIndex) ? database.lookup(board) : parentH;
+    }
+
+    @Override
+    public Heuristic forLayout(LaneBoard board) {
+        return forLayout(board, NEVER);
+    }
+
+    // A stopped build leaves no table behind; the next solve of the layout starts it over
+    @Override
+    public Heuristic forLayout(LaneBoard board, BooleanSupplier stopped) {
+        return new Bound(database(board, stopped));
+    }
+
+    @Override
+    public boolean isAdmissible() {
+        return true;
+    }
+
+    @Override
+    public int maxValue(Layout layout) {
+        return PatternDatabase.MAX_DISTANCE;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private PatternDatabase database(LaneBoard board, BooleanSupplier stopped) {
+        // piece indices differ between layouts, so only the table is shared by signature
+        PatternDatabase pattern = patterns.computeIfAbsent(board.getLayout(), layout -> PatternDatabase.select(board, maxEntries));
+        String signature = pattern.getSignature();
+        ByteBuffer table = cachedTable(signature);
+        if (table != null) return pattern.withTable(table);
+
+        Object lock = builds.computeIfAbsent(signature, s -> new Object());
+        try {
+            synchronized (lock) {
+                // another solve may have built it while this one waited
+                table = cachedTable(signature);
+                if (table == null) {
+                    table = pattern.load(board.getLayout(), directory, stopped);
+                    synchronized (tables) {
+                        tables.put(signature, table);
+                    }
+                }
+            }
+        } finally {
+            builds.remove(signature, lock);
+        }
+        return pattern.withTable(table);
+    }
+
+    private ByteBuffer cachedTable(String signature) {
+        synchronized (tables) {
+            return tables.get(signature);
+        }
+    }
+
+    // The table of one layout, held for as long as the search that asked for it
+    private static final class Bound implements Heuristic {
+        private final PatternDatabase database;
+
+        Bound(PatternDatabase database) {
+            this.database = database;
+        }
+
+        @Override
+        public int evaluate(LaneBoard board) {
+            return database.lookup(board);
+        }
+
+        @Override
+        public int update(LaneBoard board, int parentH, int pieceIndex, int delta) {
+            return PatternDatabaseHeuristic.update(database, board, parentH, pieceIndex);
+        }
+
+        @Override
+        public boolean isAdmissible() {
+            return true;
+        }
+
+        @Override
+        public int maxValue(Layout layout) {
+            return PatternDatabase.MAX_DISTANCE;
+        }
+    }
+}
@@ -90,4 +90,13 @@ public class Piece {
         return isVertical;
     }
 
+    // Row for horizontal pieces, column for vertical pieces; never changes
+    public int getLane() {
+        return isVertical ? posJ : posI;
+    }
+    // Position along the lane
+    public int getOffset() {
+        return isVertical ? posI : posJ;
+    }
+
 }
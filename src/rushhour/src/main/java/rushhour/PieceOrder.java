@@ -0,0 +1,96 @@
+package rushhour;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A fixed order of a layout's pieces, and the layout rebuilt in that order, for keys that
+// must not depend on the order the pieces were read in. By letter, pieces keep their
+// identity. By shape, pieces are ordered by lane and then by position along it, and
+// only their size and which one is primary are kept: same-size pieces sharing a lane
+// become interchangeable, so boards that differ only in those letters get one key.
+// Pieces never pass each other within a lane, so an order by shape taken at one state
+// holds for every state reachable from it.
+public final class PieceOrder {
+    private final Layout layout;
+    private final Layout canonical;
+    private final int[] order; // order[c] is the layout index of canonical piece c
+    private final boolean byShape;
+
+    private PieceOrder(Layout layout, Integer[] order, boolean byShape) {
+        this.layout = layout;
+        this.order = new int[order.length];
+        for (int c = 0; c < order.length; c++) this.order[c] = order[c];
+        this.byShape = byShape;
+
+        List<Piece> pieces = layout.createPieces(new long[layout.getWords()]);
+        List<Piece> sorted = new ArrayList<>(pieces.size());
+        for (int index : this.order) sorted.add(pieces.get(index));
+        this.canonical = new Layout(layout.createBoard(), sorted);
+    }
+
+    public static PieceOrder byLetter(Layout layout) {
+        Integer[] order = indices(layout);
+        Arrays.sort(order, (a, b) -> Character.compare(layout.getColor(a), layout.getColor(b)));
+        return new PieceOrder(layout, order, false);
+    }
+
+    // I.S.: key is a state of layout; the order is valid for the states reachable from it
+    public static PieceOrder byShape(Layout layout, long[] key) {
+        Integer[] order = indices(layout);
+        Arrays.sort(order, (a, b) -> {
+            if (layout.isVertical(a) != layout.isVertical(b)) return layout.isVertical(a) ? 1 : -1;
+            if (layout.getLane(a) != layout.getLane(b)) return layout.getLane(a) - layout.getLane(b);
+            return layout.getOffset(key, a) - layout.getOffset(key, b);
+        });
+        return new PieceOrder(layout, order, true);
+    }
+
+    private static Integer[] indices(Layout layout) {
+        Integer[] order = new Integer[layout.getNumPieces()];
+        for (int k = 0; k < order.length; k++) order[k] = k;
+        return order;
+    }
+
+    // The layout with its pieces in this order
+    public Layout getLayout() {
+        return canonical;
+    }
+
+    public boolean isByShape() {
+        return byShape;
+    }
+
+    // Layout index of the piece at position c of this order
+    public int toOriginal(int c) {
+        return order[c];
+    }
+
+    public long[] toCanonical(long[] key) {
+        long[] result = new long[canonical.getWords()];
+        for (int c = 0; c < order.length; c++) {
+            canonical.setOffset(result, c, layout.getOffset(key, order[c]));
+        }
+        return result;
+    }
+
+    // Board size, exit, then every piece in order as letter, orientation, lane and length;
+    // by shape the letter is P for the primary piece and * for any other
+    public String signature() {
+        return describe(null);
+    }
+
+    // The signature with every piece's offset in key appended
+    public String describe(long[] key) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(layout.getHeight()).append('x').append(layout.getWidth())
+                .append('@').append(layout.getWinPosI()).append(',').append(layout.getWinPosJ());
+        for (int k : order) {
+            char letter = !byShape ? layout.getColor(k) : k == layout.getPrimaryIndex() ? 'P' : '*';
+            sb.append(';').append(letter).append(layout.isVertical(k) ? 'V' : 'H')
+                    .append(layout.getLane(k)).append(',').append(layout.getLength(k));
+            if (key != null) sb.append(',').append(layout.getOffset(key, k));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,240 @@
+package rushhour;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Distance to the goal of every placement of one layout, precomputed by retrograde
+// analysis (PuzzleGenerator) and kept on disk. A placement's rank is its position
+// among the sorted keys; the file holds the sorted keys and then one distance byte
+// per rank. Keys are packed in a PieceOrder, so puzzles that list the same pieces in
+// another order share a database; by shape, so do puzzles that differ only in the
+// letters of same-size pieces sharing a lane.
+//
+// Nothing is read when a database is found: the file is memory-mapped on the first
+// lookup, and the OS pages in only the parts binary searches touch. A solve then walks
+// downhill, one successor per move, without searching.
+//
+// Usage: PositionDatabase <puzzle file>... [--output db] [--threads cores] [--max-states 100000000]
+//        [--interchangeable true|false]
+public class PositionDatabase {
+    private static final String USAGE = "Usage: PositionDatabase <puzzle file>... [--output db]"
+            + " [--threads cores] [--max-states 100000000] [--interchangeable true|false]";
+    private static final int MAGIC = 0x52484442; // "RHDB"
+    private static final int VERSION = 1;
+    private static final int UNREACHED = 0xFF;
+    private static final Map<Path, PositionDatabase> OPEN = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final String signature;
+    private ByteBuffer data; // mapped on first use
+    private int count;
+    private int keysAt;
+
+    private PositionDatabase(Path file, String signature) {
+        this.file = file;
+        this.signature = signature;
+    }
+
+    // rushhour.db.dir if set, otherwise db in the working directory
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("rushhour.db.dir", "db"));
+    }
+
+    // The database of the layout in dir, or null if none was built; opens nothing yet
+    public static PositionDatabase find(Path dir, PieceOrder order) {
+        String signature = order.signature();
+        Path file = dir.resolve(fileName(signature)).toAbsolutePath();
+        if (!Files.isRegularFile(file)) return null;
+        return OPEN.computeIfAbsent(file, f -> new PositionDatabase(f, signature));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<Path> inputs = new ArrayList<>();
+        Path output = Paths.get("db");
+        int threads = Runtime.getRuntime().availableProcessors();
+        long maxStates = 100_000_000L;
+        boolean interchangeable = false;
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                inputs.add(Paths.get(args[i]));
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i] + ". " + USAGE);
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--output":
+                    output = Paths.get(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--max-states":
+                    maxStates = Long.parseLong(value);
+                    break;
+                case "--interchangeable":
+                    interchangeable = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i - 1] + ". " + USAGE);
+            }
+        }
+        if (inputs.isEmpty()) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        for (Path input : inputs) {
+            Reader reader = Reader.fromText(new String(Files.readAllBytes(input), StandardCharsets.UTF_8));
+            Layout layout = new Layout(reader.getBoard(), reader.getPieces());
+            long[] key = layout.encode(reader.getPieces());
+            PieceOrder order = interchangeable ? PieceOrder.byShape(layout, key) : PieceOrder.byLetter(layout);
+            long start = System.nanoTime();
+            Path file = build(order, key, output, threads, maxStates);
+            System.err.printf("%s: %d bytes in %.1f s%n", input, Files.size(file), (System.nanoTime() - start) / 1e9);
+            System.out.println(file);
+        }
+    }
+
+    // Analyzes every placement of the layout that keeps the lane order of key and writes
+    // the database into dir, replacing an older one of the same layout and order
+    public static Path build(PieceOrder order, long[] key, Path dir, int threads, long maxStates)
+            throws IOException, InterruptedException {
+        PuzzleGenerator generator = new PuzzleGenerator(order.getLayout(), threads, maxStates);
+        generator.analyze(order.toCanonical(key));
+        long[] keys = generator.getKeys();
+        byte[] distances = generator.getDistances();
+
+        String signature = order.signature();
+        Files.createDirectories(dir);
+        Path file = dir.resolve(fileName(signature));
+        Path temp = Files.createTempFile(dir, "positions-", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(signature);
+            out.writeInt(keys.length);
+            // keys start on a multiple of 8 so they can be read as aligned longs
+            for (int pad = out.size(); pad % Long.BYTES != 0; pad++) out.writeByte(0);
+            for (long k : keys) out.writeLong(k);
+            out.write(distances);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        OPEN.remove(file.toAbsolutePath()); // a mapping of the replaced file would keep serving it
+        return file;
+    }
+
+    // Path from start to a goal, optimal and starting with start itself; empty if the
+    // placement cannot reach a goal, null if the database does not have it (pieces of a
+    // lane in another order than the database was built with). The path moves the pieces
+    // of start, by their own letters, whichever order the database was found with
+    public List<State> solve(State start, PieceOrder order) throws IOException {
+        Layout layout = start.layout;
+        Layout canonical = order.getLayout();
+        if (canonical.getWords() != 1) return null;
+        long[] key = order.toCanonical(start.key);
+        ByteBuffer buffer = map();
+        int distance = distance(buffer, key[0]);
+        if (distance == -2) return null;
+        List<State> path = new ArrayList<>(Math.max(distance, 0) + 1);
+        if (distance == -1) return path;
+
+        MoveGenerator generator = new MoveGenerator(canonical);
+        MoveGenerator moves = new MoveGenerator(layout);
+        int[] step = new int[2];
+        long[] current = start.key.clone();
+        State state = start;
+        path.add(state);
+        for (int d = distance; d > 0; d--) {
+            int downhill = d - 1;
+            step[1] = 0;
+            generator.load(key);
+            generator.forEachSuccessor((gen, pieceIndex, delta) -> {
+                if (step[1] == 0 && distance(buffer, gen.getKey()[0]) == downhill) {
+                    step[0] = pieceIndex;
+                    step[1] = delta;
+                }
+            });
+            if (step[1] == 0) {
+                throw new IOException("Corrupt position database, no move downhill from distance " + d + ": " + file);
+            }
+            int piece = order.toOriginal(step[0]);
+            canonical.setOffset(key, step[0], canonical.getOffset(key, step[0]) + step[1]);
+            layout.setOffset(current, piece, layout.getOffset(current, piece) + step[1]);
+            state = new State(layout, current.clone(), state, moves.getMove(piece, step[1]), state.gCost + 1, 0);
+            path.add(state);
+        }
+        return path;
+    }
+
+    // Moves to the goal, -1 if there is no way there, -2 if the key has no rank
+    private int distance(ByteBuffer buffer, long target) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long k = buffer.getLong(keysAt + mid * Long.BYTES);
+            if (k < target) {
+                low = mid + 1;
+            } else if (k > target) {
+                high = mid - 1;
+            } else {
+                int d = buffer.get(keysAt + count * Long.BYTES + mid) & 0xFF;
+                return d == UNREACHED ? -1 : d;
+            }
+        }
+        return -2;
+    }
+
+    private synchronized ByteBuffer map() throws IOException {
+        if (data != null) return data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Position database too large to map: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                throw new IOException("Not a position database file: " + file);
+            }
+            int length = mapped.getShort(8) & 0xFFFF;
+            byte[] text = new byte[length];
+            mapped.position(10);
+            mapped.get(text);
+            if (!new String(text, StandardCharsets.UTF_8).equals(signature)) {
+                throw new IOException("Position database of another layout: " + file);
+            }
+            int states = mapped.getInt(10 + length);
+            int start = (14 + length + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+            if (states < 0 || start + (long) states * (Long.BYTES + 1) != channel.size()) {
+                throw new IOException("Truncated position database: " + file);
+            }
+            count = states;
+            keysAt = start;
+            data = mapped;
+            return data;
+        }
+    }
+
+    private static String fileName(String signature) {
+        return String.format("layout-%08x.rhdb", signature.hashCode());
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
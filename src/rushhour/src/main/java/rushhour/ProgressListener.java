@@ -0,0 +1,7 @@
+package rushhour;
+
+// Receives sampled progress of a running solve, on the thread that runs the search
+// (any worker thread for the parallel modes). Must return quickly.
+public interface ProgressListener {
+    void onProgress(SearchProgress progress);
+}
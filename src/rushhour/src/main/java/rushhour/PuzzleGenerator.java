@@ -0,0 +1,438 @@
+package rushhour;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Retrograde analysis of a layout: the board size and pieces of a puzzle file, with
+// every piece free to sit anywhere along its lane. Every placement that keeps each
+// lane's pieces in their file order (they can never pass each other) is enumerated,
+// then a breadth-first search from all goal placements gives every placement its
+// distance to the nearest goal. The farthest placements, one per connected component
+// of the slide graph, are the hardest puzzles of the layout and are written in the
+// test/ format.
+//
+// Both phases run on a fixed pool. Placements are stored as one sorted long[] of
+// keys, so a state is an index found by binary search and distances are one byte
+// per state.
+//
+// Usage: PuzzleGenerator <puzzle file> [--count 10] [--threads cores]
+//        [--max-states 100000000] [--output directory]
+public class PuzzleGenerator {
+    private static final String USAGE = "Usage: PuzzleGenerator <puzzle file> [--count 10] [--threads cores]"
+            + " [--max-states 100000000] [--output directory]";
+    private static final byte UNREACHED = (byte) 0xFF;
+    private static final int MAX_DISTANCE = 254;
+    private static final int TASKS_PER_THREAD = 8;
+
+    private final Layout layout;
+    private final int threads;
+    private final long maxStates;
+    private long[] keys; // every placement, sorted
+    private byte[] distances; // to the nearest goal, UNREACHED if there is none
+    private int maxDistance = -1;
+
+    public PuzzleGenerator(Layout layout, int threads, long maxStates) {
+        if (layout.getWords() != 1) {
+            throw new IllegalArgumentException("Expected a layout whose states fit in 64 bits, but found: "
+                    + layout.getWords() + " words");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, but found: " + threads);
+        }
+        this.layout = layout;
+        this.threads = threads;
+        this.maxStates = maxStates;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        int count = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long maxStates = 100_000_000L;
+        Path output = Paths.get(".");
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i] + ". " + USAGE);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--count":
+                    count = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--max-states":
+                    maxStates = Long.parseLong(value);
+                    break;
+                case "--output":
+                    output = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i] + ". " + USAGE);
+            }
+        }
+
+        Reader reader = Reader.fromText(new String(Files.readAllBytes(input), StandardCharsets.UTF_8));
+        Layout layout = new Layout(reader.getBoard(), reader.getPieces());
+        PuzzleGenerator generator = new PuzzleGenerator(layout, threads, maxStates);
+        long start = System.nanoTime();
+        generator.analyze(layout.encode(reader.getPieces()));
+        System.err.printf("%d placements, %d solvable, farthest %d moves, in %.1f s on %d threads%n",
+                generator.getStates(), generator.getSolvable(), generator.getMaxDistance(),
+                (System.nanoTime() - start) / 1e9, threads);
+        long[] histogram = generator.getHistogram();
+        for (int d = 0; d < histogram.length; d++) {
+            System.err.println("  " + d + " moves: " + histogram[d]);
+        }
+
+        Files.createDirectories(output);
+        String name = input.getFileName().toString().replaceFirst("\\.txt$", "");
+        List<long[]> hardest = generator.getFarthest(count);
+        for (int n = 0; n < hardest.size(); n++) {
+            long[] key = hardest.get(n);
+            Path file = output.resolve(String.format("%s-%d-%d.txt", name, generator.getDistance(key), n + 1));
+            Files.write(file, Reader.toText(layout.createBoard(), layout.createPieces(key)).getBytes(StandardCharsets.UTF_8));
+            System.out.println(file);
+        }
+    }
+
+    // I.S.: initialKey is any placement of the layout; it fixes the order of pieces within each lane
+    public void analyze(long[] initialKey) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            keys = enumerate(pool, initialKey);
+            distances = new byte[keys.length];
+            search(pool);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Lane by lane in initial order, so keeping same-lane order is a neighbour check
+    private Integer[] laneOrder(long[] initialKey) {
+        Integer[] order = new Integer[layout.getNumPieces()];
+        for (int k = 0; k < order.length; k++) order[k] = k;
+        Arrays.sort(order, (a, b) -> {
+            if (layout.isVertical(a) != layout.isVertical(b)) return layout.isVertical(a) ? 1 : -1;
+            if (layout.getLane(a) != layout.getLane(b)) return layout.getLane(a) - layout.getLane(b);
+            return layout.getOffset(initialKey, a) - layout.getOffset(initialKey, b);
+        });
+        return order;
+    }
+
+    private long[] enumerate(ExecutorService pool, long[] initialKey) throws InterruptedException {
+        Integer[] order = laneOrder(initialKey);
+        // split on the placements of the first few pieces until there is work for every thread
+        List<long[]> prefixes = new ArrayList<>();
+        prefixes.add(new long[] {initialKey[0]});
+        int depth = 0;
+        while (depth < order.length && prefixes.size() < threads * TASKS_PER_THREAD) {
+            List<long[]> next = new ArrayList<>();
+            for (long[] prefix : prefixes) {
+                Enumeration e = new Enumeration(order, prefix[0], depth);
+                for (int offset = e.low(depth); offset <= e.high(depth); offset++) {
+                    if (!e.mark(order[depth], offset, true)) continue;
+                    long[] key = prefix.clone();
+                    layout.setOffset(key, order[depth], offset);
+                    next.add(key);
+                    e.mark(order[depth], offset, false);
+                }
+            }
+            prefixes = next;
+            depth++;
+        }
+
+        AtomicLong total = new AtomicLong();
+        List<Future<LongList>> parts = new ArrayList<>(prefixes.size());
+        final int splitDepth = depth;
+        for (long[] prefix : prefixes) {
+            parts.add(pool.submit(() -> new Enumeration(order, prefix[0], splitDepth).run(total)));
+        }
+        LongList all = new LongList();
+        for (Future<LongList> part : parts) {
+            all.addAll(join(part));
+        }
+        long[] sorted = all.toArray();
+        Arrays.parallelSort(sorted);
+        return sorted;
+    }
+
+    // Level-synchronous BFS from every goal. Each level is split into index ranges; workers
+    // that reach the same unreached state write the same distance, so they need no locking
+    private void search(ExecutorService pool) throws InterruptedException {
+        Arrays.fill(distances, UNREACHED);
+        int goals = 0;
+        long[] key = new long[1];
+        for (int i = 0; i < keys.length; i++) {
+            key[0] = keys[i];
+            if (layout.isGoal(key)) {
+                distances[i] = 0;
+                goals++;
+            }
+        }
+        if (goals == 0) return;
+        maxDistance = 0;
+
+        int chunk = Math.max(1 << 12, keys.length / (threads * TASKS_PER_THREAD) + 1);
+        for (int d = 0; d < MAX_DISTANCE; d++) {
+            final byte level = (byte) d;
+            List<Future<Boolean>> parts = new ArrayList<>();
+            for (int from = 0; from < keys.length; from += chunk) {
+                final int begin = from;
+                final int end = Math.min(keys.length, from + chunk);
+                parts.add(pool.submit(() -> expand(begin, end, level)));
+            }
+            boolean grew = false;
+            for (Future<Boolean> part : parts) {
+                grew |= join(part);
+            }
+            if (!grew) return;
+            maxDistance = d + 1;
+        }
+    }
+
+    // Gives every unreached neighbour of a state at this level the next distance
+    private boolean expand(int begin, int end, byte level) {
+        MoveGenerator generator = new MoveGenerator(layout);
+        byte next = (byte) (level + 1);
+        long[] key = new long[1];
+        boolean[] grew = new boolean[1];
+        for (int i = begin; i < end; i++) {
+            if (distances[i] != level) continue;
+            key[0] = keys[i];
+            generator.load(key);
+            generator.forEachSuccessor((gen, pieceIndex, delta) -> {
+                int j = Arrays.binarySearch(keys, gen.getKey()[0]);
+                if (distances[j] == UNREACHED) {
+                    distances[j] = next;
+                    grew[0] = true;
+                }
+            });
+        }
+        return grew[0];
+    }
+
+    private static <T> T join(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Generator worker failed", e.getCause());
+        }
+    }
+
+    // Every placement, sorted; a placement's rank is its index here
+    long[] getKeys() {
+        return keys;
+    }
+
+    // By rank, 0xFF for placements that cannot reach a goal
+    byte[] getDistances() {
+        return distances;
+    }
+
+    public int getStates() {
+        return keys.length;
+    }
+
+    public long getSolvable() {
+        long solvable = 0;
+        for (byte d : distances) {
+            if (d != UNREACHED) solvable++;
+        }
+        return solvable;
+    }
+
+    // -1 if no placement is a goal
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    // Distance to the nearest goal, or -1 if the placement cannot reach one
+    public int getDistance(long[] key) {
+        int i = Arrays.binarySearch(keys, key[0]);
+        if (i < 0) {
+            throw new IllegalArgumentException("Not a placement of this layout: " + Arrays.toString(key));
+        }
+        return distances[i] == UNREACHED ? -1 : distances[i] & 0xFF;
+    }
+
+    // Placements per distance, index 0 being the goals
+    public long[] getHistogram() {
+        long[] histogram = new long[maxDistance + 1];
+        for (byte d : distances) {
+            if (d != UNREACHED) histogram[d & 0xFF]++;
+        }
+        return histogram;
+    }
+
+    // Up to count placements, farthest first, at most one per connected component: the
+    // placements next to a farthest one are a slide away from it and the same puzzle in
+    // all but its first move. Ties in key order so runs are reproducible
+    public List<long[]> getFarthest(int count) {
+        List<long[]> farthest = new ArrayList<>();
+        BitSet taken = new BitSet(keys.length); // placements in the component of one already chosen
+        MoveGenerator generator = new MoveGenerator(layout);
+        for (int d = maxDistance; d > 0 && farthest.size() < count; d--) {
+            byte level = (byte) d;
+            for (int i = 0; i < keys.length && farthest.size() < count; i++) {
+                if (distances[i] != level || taken.get(i)) continue;
+                farthest.add(new long[] {keys[i]});
+                markComponent(i, taken, generator);
+            }
+        }
+        return farthest;
+    }
+
+    // Depth-first over slides from rank start; every placement is marked at most once
+    // over all calls, so choosing is linear in the placements
+    private void markComponent(int start, BitSet taken, MoveGenerator generator) {
+        LongList stack = new LongList();
+        stack.add(start);
+        taken.set(start);
+        long[] key = new long[1];
+        while (stack.size() > 0) {
+            key[0] = keys[(int) stack.removeLast()];
+            generator.load(key);
+            generator.forEachSuccessor((gen, pieceIndex, delta) -> {
+                int j = Arrays.binarySearch(keys, gen.getKey()[0]);
+                if (!taken.get(j)) {
+                    taken.set(j);
+                    stack.add(j);
+                }
+            });
+        }
+    }
+
+    // Depth-first placement of the pieces after a fixed prefix, on its own occupancy grid
+    private final class Enumeration {
+        private final Integer[] order;
+        private final long[] key;
+        private final int start;
+        private final boolean[] occupied = new boolean[layout.getWidth() * layout.getHeight()];
+        private final LongList found = new LongList();
+        private AtomicLong total;
+
+        // I.S.: the first start pieces of order are placed in key without overlapping
+        Enumeration(Integer[] order, long key, int start) {
+            this.order = order;
+            this.key = new long[] {key};
+            this.start = start;
+            for (int depth = 0; depth < start; depth++) {
+                mark(order[depth], layout.getOffset(this.key, order[depth]), true);
+            }
+        }
+
+        LongList run(AtomicLong total) {
+            this.total = total;
+            place(start);
+            if (total.addAndGet(found.size() & 0xFFF) > maxStates) tooMany();
+            return found;
+        }
+
+        private void place(int depth) {
+            if (depth == order.length) {
+                found.add(key[0]);
+                // checked every 4096 placements, so a too large layout fails before memory does
+                if ((found.size() & 0xFFF) == 0 && total.addAndGet(0x1000) > maxStates) tooMany();
+                return;
+            }
+            int index = order[depth];
+            for (int offset = low(depth); offset <= high(depth); offset++) {
+                if (!mark(index, offset, true)) continue;
+                layout.setOffset(key, index, offset);
+                place(depth + 1);
+                mark(index, offset, false);
+            }
+        }
+
+        private void tooMany() {
+            throw new IllegalArgumentException("Layout has more than " + maxStates
+                    + " placements. Expected a smaller layout or a larger --max-states");
+        }
+
+        // Lowest offset of the piece at this depth: past its predecessor in the same lane
+        int low(int depth) {
+            if (depth == 0) return 0;
+            int index = order[depth];
+            int previous = order[depth - 1];
+            if (layout.isVertical(previous) == layout.isVertical(index) && layout.getLane(previous) == layout.getLane(index)) {
+                return layout.getOffset(key, previous) + layout.getLength(previous);
+            }
+            return 0;
+        }
+
+        int high(int depth) {
+            return layout.getMaxOffset(order[depth]);
+        }
+
+        // Claims (or releases) the cells of a piece; false, with nothing claimed, on overlap
+        boolean mark(int index, int offset, boolean claim) {
+            int lane = layout.getLane(index);
+            int width = layout.getWidth();
+            int length = layout.getLength(index);
+            for (int x = offset; x < offset + length; x++) {
+                int cell = layout.isVertical(index) ? x * width + lane : lane * width + x;
+                if (claim && occupied[cell]) {
+                    for (int y = offset; y < x; y++) {
+                        occupied[layout.isVertical(index) ? y * width + lane : lane * width + y] = false;
+                    }
+                    return false;
+                }
+                occupied[cell] = claim;
+            }
+            return true;
+        }
+    }
+
+    // Growable long array, to keep millions of keys (or ranks) unboxed
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size = 0;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length << 1);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(LongList other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length << 1, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long removeLast() {
+            return values[--size];
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
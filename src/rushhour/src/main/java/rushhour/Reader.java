@@ -1,6 +1,7 @@
 package rushhour;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -125,7 +126,97 @@ public class Reader {
         this.board.buildBoard(this.pieces);
     }
 
+    // Parses the puzzle file format: "rows cols", the number of non-primary pieces, then the grid
+    public static Reader fromText(String content) {
+        if (content == null || content.trim().isEmpty()) {
+            throw new IllegalArgumentException("Board is empty");
+        }
+
+        int row, col, numPieces;
+
+        String[] lines = content.split("\\R");
+        String[] firstLine = lines[0].split(" ");
+        if (firstLine.length != 2) {
+            throw new IllegalArgumentException("Must provide two integers for rows and columns");
+        }
+        try {
+            row = Integer.parseInt(firstLine[0]);
+            col = Integer.parseInt(firstLine[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Rows and colums must be integers");
+        }
+
+        if (row <= 0 || col <= 0) {
+            throw new IllegalArgumentException("Rows and colums must be non zero positive integers");
+        }
+
+        if (lines.length < 2) {
+            throw new IllegalArgumentException("Must provide one integer for number of pieces");
+        }
+        String[] secondLine = lines[1].split(" ");
+        if (secondLine.length != 1) {
+            throw new IllegalArgumentException("Must provide one integer for number of pieces");
+        }
+        try {
+            numPieces = Integer.parseInt(secondLine[0]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Number of pieces must be an integer");
+        }
+        if (numPieces <= 0) {
+            throw new IllegalArgumentException("Number of pieces must be a non zero positive integer");
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 2; i < lines.length; i++) {
+            sb.append(lines[i]);
+            if (i != lines.length - 1) {
+                sb.append("\n");
+            }
+        }
+
+        return new Reader(sb.toString(), col, row, numPieces);
+    }
     
+    // Inverse of fromText: the file format with K beside the exit cell
+    public static String toText(Board board, List<Piece> pieces) {
+        int width = board.getWidth();
+        int height = board.getHeight();
+        char[][] grid = new char[height][width];
+        for (char[] row : grid) {
+            Arrays.fill(row, '.');
+        }
+        Piece primary = null;
+        for (Piece piece : pieces) {
+            for (int i = piece.getPosI(); i < piece.getPosI() + piece.getHeight(); i++) {
+                for (int j = piece.getPosJ(); j < piece.getPosJ() + piece.getWidth(); j++) {
+                    grid[i][j] = piece.getColor();
+                }
+            }
+            if (piece instanceof PrimaryPiece) primary = piece;
+        }
+
+        int exitI = board.getWinPosI();
+        int exitJ = board.getWinPosJ();
+        boolean vertical = primary != null && primary.isVertical();
+        StringBuilder sb = new StringBuilder();
+        sb.append(height).append(' ').append(width).append('\n');
+        sb.append(pieces.size() - 1).append('\n');
+        // an exit on the left or top edge goes before its row or column, padded with spaces
+        if (vertical && exitI == 0) {
+            sb.append(" ".repeat(exitJ)).append("K\n");
+        }
+        for (int i = 0; i < height; i++) {
+            if (!vertical && exitJ == 0) sb.append(i == exitI ? 'K' : ' ');
+            sb.append(grid[i]);
+            if (!vertical && exitJ != 0 && i == exitI) sb.append('K');
+            if (i < height - 1) sb.append('\n');
+        }
+        if (vertical && exitI != 0) {
+            sb.append('\n').append(" ".repeat(exitJ)).append('K');
+        }
+        return sb.toString();
+    }
+
     public Board getBoard() {
         return board;
     }
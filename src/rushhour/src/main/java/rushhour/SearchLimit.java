@@ -0,0 +1,133 @@
+package rushhour;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import rushhour.SolveResult.Reason;
+
+// Node, wall-time and memory budget of one solve, its cancellation, and its progress
+// reports. Searches ask before every expansion, passing the number of nodes
+// expanded so far, and report the bytes they retain as they grow; once a budget is
+// used up or the solve is cancelled, reached stays true, so every worker of a
+// parallel search sees the same answer. The clock, the cancellation check and the
+// listener only run every 256 expansions.
+final class SearchLimit {
+    private static final long CLOCK_MASK = 0xFF; // read the clock every 256 expansions
+
+    private final long maxNodes;
+    private final long maxBytes;
+    private final AtomicLong retained = new AtomicLong();
+    private final long start = System.nanoTime();
+    private final long deadline; // System.nanoTime() value
+    private final boolean timed;
+    private final BooleanSupplier cancellation; // null if the solve cannot be cancelled
+    private final ProgressListener listener; // null if nobody listens
+    private final long intervalNanos;
+    private int initialH;
+    private final AtomicInteger bestH = new AtomicInteger(Integer.MAX_VALUE);
+    private volatile boolean reached = false;
+    private volatile Reason reason = null; // the first budget to run out
+    private long nextReport;
+    private long lastReportTime;
+    private long lastReportExpanded = 0;
+
+    SearchLimit(SolveConfig config) {
+        this(config, null, null, 0, 0);
+    }
+
+    SearchLimit(SolveConfig config, BooleanSupplier cancellation, ProgressListener listener,
+            long intervalMillis, int initialH) {
+        this.maxNodes = config.getMaxNodes();
+        this.maxBytes = config.getMaxBytes();
+        this.timed = config.getTimeLimitMillis() > 0;
+        this.deadline = start + config.getTimeLimitMillis() * 1_000_000L;
+        this.cancellation = cancellation;
+        this.listener = listener;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+        this.initialH = initialH;
+        this.nextReport = start + intervalNanos;
+        this.lastReportTime = start;
+    }
+
+    // frontier and h describe the state about to be expanded, for progress reports;
+    // h is Integer.MAX_VALUE for searches without one
+    boolean reached(long expanded, long frontier, int h) {
+        if (h < bestH.get()) bestH.accumulateAndGet(h, Math::min);
+        if (reached) return true;
+        if (expanded >= maxNodes) {
+            stop(Reason.NODE_LIMIT);
+        } else if ((expanded & CLOCK_MASK) == 0 && (timed || cancellation != null || listener != null)) {
+            tick(expanded, frontier);
+        }
+        return reached;
+    }
+
+    // Every 256 expansions only one caller gets here, even in a parallel search
+    private void tick(long expanded, long frontier) {
+        long now = System.nanoTime();
+        if (timed && now - deadline >= 0) {
+            stop(Reason.TIME_LIMIT);
+        }
+        if (cancellation != null && cancellation.getAsBoolean()) {
+            stop(Reason.CANCELLED);
+        }
+        if (listener != null && now - nextReport >= 0) {
+            double seconds = (now - lastReportTime) / 1e9;
+            int best = bestH.get();
+            listener.onProgress(new SearchProgress(expanded, now - start, (expanded - lastReportExpanded) / seconds,
+                    frontier, best == Integer.MAX_VALUE ? -1 : best, initialH));
+            lastReportTime = now;
+            lastReportExpanded = expanded;
+            nextReport = now + intervalNanos;
+        }
+    }
+
+    // For long work outside the expansion loop (building a heuristic's table, enumerating
+    // seeds): true once cancelled or out of time. Reads the clock, so call it every few
+    // thousand steps rather than every step
+    boolean interrupted() {
+        if (reached) return true;
+        if (timed && System.nanoTime() - deadline >= 0) {
+            stop(Reason.TIME_LIMIT);
+        }
+        if (cancellation != null && cancellation.getAsBoolean()) {
+            stop(Reason.CANCELLED);
+        }
+        return reached;
+    }
+
+    // h of the initial state for progress reports, once known
+    void setInitialH(int initialH) {
+        this.initialH = initialH;
+    }
+
+    // Adds bytes the search has started to retain (states, table growth)
+    void retain(long bytes) {
+        if (retained.addAndGet(bytes) > maxBytes) {
+            stop(Reason.MEMORY_LIMIT);
+        }
+    }
+
+    private synchronized void stop(Reason why) {
+        if (reason == null) reason = why;
+        reached = true;
+    }
+
+    boolean isReached() {
+        return reached;
+    }
+
+    boolean isCancelled() {
+        return reason == Reason.CANCELLED;
+    }
+
+    // Why the search was stopped, or null if it was not
+    Reason getReason() {
+        return reason;
+    }
+
+    long getRetainedBytes() {
+        return retained.get();
+    }
+}
@@ -0,0 +1,138 @@
+package rushhour;
+
+import java.util.Locale;
+
+// What one solve did, filled in by whichever search ran. Counters are always kept;
+// phase times only when timing was asked for (Solver.setPhaseTiming), because reading
+// the clock around every child costs about as much as generating it. Successor time
+// is whatever the search spent outside the other three phases, which is mostly
+// sliding pieces and building states. Parallel searches add up their workers, so
+// their phase times can exceed the wall time and include waiting for work.
+public class SearchMetrics {
+    private final boolean timed;
+    long expanded = 0;
+    long generated = 0;
+    long duplicates = 0; // children dropped because the state was already known
+    long pruned = 0; // moves MovePruning skipped before generating them
+    long peakOpen = 0; // largest frontier; the deepest path for IDA*
+    long peakClosed = 0;
+    long memoryBytes = 0;
+    long totalNanos = 0;
+    long successorNanos = 0;
+    long heuristicNanos = 0;
+    long hashNanos = 0; // duplicate detection: hashing and probing the visited tables
+    long queueNanos = 0;
+
+    SearchMetrics(boolean timed) {
+        this.timed = timed;
+    }
+
+    // System.nanoTime() when timing, otherwise 0 so that every phase adds nothing
+    long clock() {
+        return timed ? System.nanoTime() : 0;
+    }
+
+    void open(long size) {
+        if (size > peakOpen) peakOpen = size;
+    }
+
+    // Charges the time since start not spent in the other phases to successor generation
+    void finish(long start) {
+        if (timed) {
+            successorNanos += System.nanoTime() - start - heuristicNanos - hashNanos - queueNanos;
+        }
+    }
+
+    // Sums another worker's counters into these; peaks add up too, as workers hold theirs at once
+    void add(SearchMetrics other) {
+        expanded += other.expanded;
+        generated += other.generated;
+        duplicates += other.duplicates;
+        pruned += other.pruned;
+        peakOpen += other.peakOpen;
+        peakClosed += other.peakClosed;
+        successorNanos += other.successorNanos;
+        heuristicNanos += other.heuristicNanos;
+        hashNanos += other.hashNanos;
+        queueNanos += other.queueNanos;
+    }
+
+    public boolean isTimed() {
+        return timed;
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getPruned() {
+        return pruned;
+    }
+
+    public long getPeakOpen() {
+        return peakOpen;
+    }
+
+    public long getPeakClosed() {
+        return peakClosed;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    // Wall time of the whole solve, measured with or without phase timing
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getSuccessorNanos() {
+        return successorNanos;
+    }
+
+    public long getHeuristicNanos() {
+        return heuristicNanos;
+    }
+
+    public long getHashNanos() {
+        return hashNanos;
+    }
+
+    public long getQueueNanos() {
+        return queueNanos;
+    }
+
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Nodes: ").append(expanded).append(" expanded, ").append(generated).append(" generated, ")
+                .append(duplicates).append(" duplicates, ").append(pruned).append(" pruned\n");
+        sb.append("Peak: ").append(peakOpen).append(" open, ").append(peakClosed).append(" closed, ")
+                .append(memoryBytes).append(" bytes\n");
+        sb.append(String.format(Locale.ROOT, "Search time: %.1f ms", totalNanos / 1e6));
+        if (timed) {
+            sb.append(String.format(Locale.ROOT, " (successors %.1f, heuristic %.1f, hashing %.1f, queue %.1f)",
+                    successorNanos / 1e6, heuristicNanos / 1e6, hashNanos / 1e6, queueNanos / 1e6));
+        }
+        return sb.toString();
+    }
+
+    public String toJson() {
+        return "{\"expanded\":" + expanded + ",\"generated\":" + generated + ",\"duplicates\":" + duplicates
+                + ",\"pruned\":" + pruned + ",\"peak_open\":" + peakOpen + ",\"peak_closed\":" + peakClosed + ",\"memory_bytes\":" + memoryBytes
+                + ",\"total_ns\":" + totalNanos + ",\"timed\":" + timed + ",\"successor_ns\":" + successorNanos
+                + ",\"heuristic_ns\":" + heuristicNanos + ",\"hash_ns\":" + hashNanos + ",\"queue_ns\":" + queueNanos + "}";
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
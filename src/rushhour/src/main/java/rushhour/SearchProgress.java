@@ -0,0 +1,55 @@
+package rushhour;
+
+import java.util.Locale;
+
+// One progress sample of a running solve
+public class SearchProgress {
+    private final long expanded;
+    private final long elapsedNanos;
+    private final double nodesPerSecond;
+    private final long frontier;
+    private final int bestH;
+    private final int initialH;
+
+    public SearchProgress(long expanded, long elapsedNanos, double nodesPerSecond, long frontier, int bestH, int initialH) {
+        this.expanded = expanded;
+        this.elapsedNanos = elapsedNanos;
+        this.nodesPerSecond = nodesPerSecond;
+        this.frontier = frontier;
+        this.bestH = bestH;
+        this.initialH = initialH;
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Rate since the previous sample
+    public double getNodesPerSecond() {
+        return nodesPerSecond;
+    }
+
+    // States waiting to be expanded; the path length for IDA*
+    public long getFrontier() {
+        return frontier;
+    }
+
+    // Lowest h of any expanded state so far, or -1 if the search uses none
+    public int getBestH() {
+        return bestH;
+    }
+
+    public int getInitialH() {
+        return initialH;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d nodes, %.0f nodes/s, frontier %d, best h %d",
+                expanded, nodesPerSecond, frontier, bestH);
+    }
+}
@@ -0,0 +1,68 @@
+package rushhour;
+
+// Precomputed slide ranges for one lane length. Bit x of a lane mask is set
+// when cell x of the lane is occupied. For a piece covering cells [start, end]
+// the legal slide range is freeBelow(mask, start) cells back and
+// freeAbove(mask, end) cells forward.
+final class SlideTable {
+    // 2^12 masks * 12 positions = 48 KB per table; longer lanes use bit scans
+    static final int MAX_TABLE_LENGTH = 12;
+
+    private static final SlideTable[] CACHE = new SlideTable[MAX_TABLE_LENGTH + 1];
+
+    private final int length;
+    private final byte[] below;
+    private final byte[] above;
+
+    private SlideTable(int length, boolean precompute) {
+        this.length = length;
+        if (!precompute) {
+            this.below = null;
+            this.above = null;
+            return;
+        }
+        int masks = 1 << length;
+        this.below = new byte[masks * length];
+        this.above = new byte[masks * length];
+        for (int mask = 0; mask < masks; mask++) {
+            for (int pos = 0; pos < length; pos++) {
+                below[mask * length + pos] = (byte) scanBelow(mask, pos);
+                above[mask * length + pos] = (byte) scanAbove(mask, pos);
+            }
+        }
+    }
+
+    static synchronized SlideTable forLength(int length) {
+        if (length > MAX_TABLE_LENGTH) {
+            return new SlideTable(length, false);
+        }
+        if (CACHE[length] == null) {
+            CACHE[length] = new SlideTable(length, true);
+        }
+        return CACHE[length];
+    }
+
+    int freeBelow(long mask, int start) {
+        if (below != null) return below[(int) mask * length + start];
+        return scanBelow(mask, start);
+    }
+
+    int freeAbove(long mask, int end) {
+        if (above != null) return above[(int) mask * length + end];
+        return scanAbove(mask, end);
+    }
+
+    private static int scanBelow(long mask, int start) {
+        long lower = mask & ((1L << start) - 1);
+        if (lower == 0) return start;
+        return start - 1 - (63 - Long.numberOfLeadingZeros(lower));
+    }
+
+    private int scanAbove(long mask, int end) {
+        int room = length - 1 - end;
+        if (room == 0) return 0;
+        long upper = mask >>> (end + 1);
+        if (upper == 0) return room;
+        return Math.min(room, Long.numberOfTrailingZeros(upper));
+    }
+}
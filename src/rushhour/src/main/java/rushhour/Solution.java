@@ -0,0 +1,191 @@
+package rushhour;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A solved path as its initial configuration plus one (piece, signed slide) pair per
+// step of the path, so length() is the solver's move count. Nothing else is kept:
+// boards and pieces of a step are built on demand through a Cursor, so a solution
+// costs O(steps) instead of a board per step, and a step's moved piece is read off
+// instead of found by comparing boards.
+public final class Solution {
+    private final Layout layout;
+    private final long[] initialKey;
+    private final int[] moves; // piece << 16 | slide as a signed short
+
+    private Solution(Layout layout, long[] initialKey, int[] moves) {
+        this.layout = layout;
+        this.initialKey = initialKey;
+        this.moves = moves;
+    }
+
+    // I.S.: path is a non-empty sequence of states, each one slide of one piece from the last
+    public static Solution of(List<State> path) {
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException("Expected a path with at least the initial state, but found: empty path");
+        }
+        Layout layout = path.get(0).layout;
+        int[] moves = new int[path.size() - 1];
+        for (int s = 1; s < path.size(); s++) {
+            long[] before = path.get(s - 1).key;
+            long[] after = path.get(s).key;
+            for (int k = 0; k < layout.getNumPieces(); k++) {
+                int delta = layout.getOffset(after, k) - layout.getOffset(before, k);
+                if (delta == 0) continue;
+                moves[s - 1] = pack(k, delta);
+                break;
+            }
+        }
+        return new Solution(layout, path.get(0).key.clone(), moves);
+    }
+
+    private static int pack(int piece, int delta) {
+        return piece << 16 | (delta & 0xFFFF);
+    }
+
+    private static int piece(int move) {
+        return move >>> 16;
+    }
+
+    private static int delta(int move) {
+        return (short) move;
+    }
+
+    // Number of moves
+    public int length() {
+        return moves.length;
+    }
+
+    // Layout index of the piece a move slides; pieces are in Layout.createPieces order
+    public int getPiece(int move) {
+        return piece(moves[move]);
+    }
+
+    // Cells the move slides its piece, negative towards the top or left
+    public int getDelta(int move) {
+        return delta(moves[move]);
+    }
+
+    public char getColor(int move) {
+        return layout.getColor(getPiece(move));
+    }
+
+    public boolean isVertical(int move) {
+        return layout.isVertical(getPiece(move));
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public List<Piece> getInitialPieces() {
+        return layout.createPieces(initialKey);
+    }
+
+    // Positioned at step 0, the initial configuration
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    // One State per step, as Solver.solve returns them
+    public List<State> toStates() {
+        MoveGenerator generator = new MoveGenerator(layout);
+        List<State> states = new ArrayList<>(moves.length + 1);
+        Cursor cursor = cursor();
+        State current = new State(layout, initialKey.clone(), null, null, 0, 0);
+        states.add(current);
+        while (cursor.hasNext()) {
+            int move = cursor.getStep();
+            cursor.next();
+            current = new State(layout, cursor.getKey(), current, generator.getMove(getPiece(move), getDelta(move)),
+                    current.gCost + 1, 0);
+            states.add(current);
+        }
+        return states;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int m = 0; m < moves.length; m++) {
+            if (m > 0) sb.append(' ');
+            int delta = getDelta(m);
+            sb.append(getColor(m)).append(isVertical(m) ? (delta < 0 ? 'U' : 'D') : (delta < 0 ? 'L' : 'R'))
+                    .append(Math.abs(delta));
+        }
+        return sb.toString();
+    }
+
+    // A step of the solution (0 to length()), moved forward, back or to any step by
+    // replaying moves on one key; boards and pieces are built only when asked for
+    public final class Cursor {
+        private final long[] key = initialKey.clone();
+        private int step = 0;
+
+        private Cursor() {
+        }
+
+        public int getStep() {
+            return step;
+        }
+
+        public boolean hasNext() {
+            return step < moves.length;
+        }
+
+        public boolean hasPrevious() {
+            return step > 0;
+        }
+
+        public void next() {
+            if (!hasNext()) {
+                throw new IllegalStateException("Cursor already at the last step " + moves.length);
+            }
+            slide(step++, 1);
+        }
+
+        public void previous() {
+            if (!hasPrevious()) {
+                throw new IllegalStateException("Cursor already at the initial step");
+            }
+            slide(--step, -1);
+        }
+
+        // O(distance from the current step)
+        public void seek(int target) {
+            if (target < 0 || target > moves.length) {
+                throw new IllegalArgumentException("Step must be between 0 and " + moves.length + ", but found: " + target);
+            }
+            while (step < target) next();
+            while (step > target) previous();
+        }
+
+        private void slide(int move, int sign) {
+            int piece = getPiece(move);
+            layout.setOffset(key, piece, layout.getOffset(key, piece) + sign * getDelta(move));
+        }
+
+        // Offset of a piece along its lane at this step
+        public int getOffset(int piece) {
+            return layout.getOffset(key, piece);
+        }
+
+        public boolean isGoal() {
+            return layout.isGoal(key);
+        }
+
+        public long[] getKey() {
+            return key.clone();
+        }
+
+        public List<Piece> getPieces() {
+            return layout.createPieces(key);
+        }
+
+        public Board getBoard() {
+            Board board = layout.createBoard();
+            board.buildBoard(getPieces());
+            return board;
+        }
+    }
+}
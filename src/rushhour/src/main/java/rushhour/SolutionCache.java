@@ -0,0 +1,369 @@
+package rushhour;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import rushhour.Solver.SearchMode;
+
+// Results of earlier solves, keyed on board content (pieces by letter, so the order
+// they were read in does not matter, or by shape when same-size pieces sharing a lane
+// are interchangeable; see PieceOrder), search mode, heuristic (by its Heuristics name)
+// and move pruning. A shortest path also answers every state along it with the rest of
+// the path, since any suffix of a shortest path is shortest; that holds for UCS and
+// bidirectional search, and for the A* family only under an admissible heuristic, in
+// both cases unless COMMUTING pruning (not proven exact) found the path. Other paths
+// answer their start alone.
+// The least recently used solutions are dropped once their estimated heap size passes
+// the limit. Nothing is written until save or flush. Thread-safe.
+public class SolutionCache {
+    public static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+    private static final int MAGIC = 0x52485343; // "RHSC"
+    private static final int VERSION = 3;
+    // estimated heap bytes per indexed state besides its key text (string, map node, Position)
+    private static final int STATE_OVERHEAD = 96;
+    // scope suffix of solutions whose moves name pieces by their place in PieceOrder.byShape
+    private static final String SHAPE_SCOPE = "shape/";
+
+    private final long maxBytes;
+    private final Path file; // null keeps the cache in memory only
+    private final LinkedHashMap<String, Solution> solutions = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Position> positions = new HashMap<>();
+    private final Object saving = new Object(); // orders concurrent saves, outside the cache's lock
+    private boolean dirty = false;
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    // Loads the file if it exists; an unreadable file starts the cache empty
+    public SolutionCache(long maxBytes, Path file) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Solution cache needs at least 1 byte, but found: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.file = file;
+        if (file != null && Files.exists(file)) {
+            try {
+                load();
+            } catch (IOException e) {
+                clear();
+            }
+        }
+    }
+
+    // rushhour.cache.file if set, otherwise null (memory only)
+    public static Path defaultFile() {
+        String path = System.getProperty("rushhour.cache.file");
+        return path != null ? Paths.get(path) : null;
+    }
+
+    // Path from the state to a goal, starting with the state itself; empty if the puzzle
+    // is known to be unsolvable, null on a miss
+    public List<State> lookup(State start, SearchMode mode, Heuristic heuristic) {
+        return lookup(start, mode, heuristic, MovePruning.NONE, false);
+    }
+
+    // With interchangeable pieces, a solution of a board that differs only in the letters of
+    // same-size pieces sharing a lane answers too, replayed with this board's letters
+    public synchronized List<State> lookup(State start, SearchMode mode, Heuristic heuristic, MovePruning pruning,
+            boolean interchangeable) {
+        PieceOrder order = order(start, interchangeable);
+        Position position = positions.get(scope(mode, heuristic, pruning, interchangeable) + order.describe(start.key));
+        if (position == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        solutions.get(position.solution.key); // refresh its place in the LRU order
+        return position.solution.replay(start, order, position.index);
+    }
+
+    // I.S.: path is the result of solving start in the given mode: start first, a goal last,
+    // or empty if the search proved there is no solution
+    public void put(State start, List<State> path, SearchMode mode, Heuristic heuristic) {
+        put(start, path, mode, heuristic, MovePruning.NONE, false);
+    }
+
+    public synchronized void put(State start, List<State> path, SearchMode mode, Heuristic heuristic,
+            MovePruning pruning, boolean interchangeable) {
+        String scope = scope(mode, heuristic, pruning, interchangeable);
+        Solution solution = Solution.of(scope, isShortest(mode, heuristic, pruning), order(start, interchangeable),
+                start, path);
+        if (solution.bytes > maxBytes) return;
+
+        Solution previous = solutions.remove(solution.key);
+        if (previous != null) forget(previous);
+        add(solution);
+
+        Iterator<Solution> eldest = solutions.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Solution evicted = eldest.next();
+            eldest.remove();
+            forget(evicted);
+        }
+        dirty = true;
+    }
+
+    // True if every path the mode returns with the heuristic and pruning is a shortest one
+    private static boolean isShortest(SearchMode mode, Heuristic heuristic, MovePruning pruning) {
+        if (pruning == MovePruning.COMMUTING) return false;
+        switch (mode) {
+            case UCS:
+            case PARALLEL_UCS:
+            case BIDIRECTIONAL:
+                return true;
+            case A_STAR:
+            case PARALLEL_A_STAR:
+            case IDA_STAR:
+            case DATABASE: // exact from a database, A* without one
+                return heuristic.isAdmissible();
+            default:
+                return false;
+        }
+    }
+
+    private void add(Solution solution) {
+        solutions.put(solution.key, solution);
+        bytes += solution.bytes;
+        // a suffix of any other path is not known to be what the mode returns from there
+        int indexed = solution.shortest ? solution.states.length : 1;
+        for (int i = 0; i < indexed; i++) {
+            positions.put(solution.scope + solution.states[i], new Position(solution, i));
+        }
+    }
+
+    // Drops the positions still pointing into a solution already taken out of solutions
+    private void forget(Solution solution) {
+        bytes -= solution.bytes;
+        for (String state : solution.states) {
+            Position position = positions.get(solution.scope + state);
+            if (position != null && position.solution == solution) positions.remove(solution.scope + state);
+        }
+    }
+
+    public synchronized void clear() {
+        solutions.clear();
+        positions.clear();
+        bytes = 0;
+        dirty = true;
+    }
+
+    // Saves if anything changed since the cache was loaded or last saved; nothing to do
+    // for a cache kept in memory only
+    public void flush() throws IOException {
+        save(false);
+    }
+
+    // Writes every solution, least recently used first, through a temporary file. Only
+    // taking the snapshot holds the cache's lock, so solves go on during the write
+    public void save() throws IOException {
+        save(true);
+    }
+
+    private void save(boolean always) throws IOException {
+        if (file == null) return;
+        synchronized (saving) {
+            List<Solution> snapshot;
+            synchronized (this) {
+                if (!always && !dirty) return;
+                snapshot = new ArrayList<>(solutions.values());
+                dirty = false;
+            }
+            try {
+                write(snapshot);
+            } catch (IOException e) {
+                synchronized (this) {
+                    dirty = true;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void write(List<Solution> snapshot) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "solutions-", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(snapshot.size());
+                for (Solution solution : snapshot) {
+                    solution.write(out);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp); // left only if the write or the move failed
+        }
+    }
+
+    public synchronized int size() {
+        return solutions.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a solution cache file: " + file);
+            }
+            int count = in.readInt();
+            for (int s = 0; s < count; s++) {
+                add(Solution.read(in));
+            }
+        }
+    }
+
+    private static String scope(SearchMode mode, Heuristic heuristic, MovePruning pruning, boolean interchangeable) {
+        return mode + "/" + Heuristics.nameOf(heuristic) + "/" + pruning + "/" + (interchangeable ? SHAPE_SCOPE : "");
+    }
+
+    private static PieceOrder order(State start, boolean interchangeable) {
+        return interchangeable ? PieceOrder.byShape(start.layout, start.key) : PieceOrder.byLetter(start.layout);
+    }
+
+    private static final class Position {
+        final Solution solution;
+        final int index;
+
+        Position(Solution solution, int index) {
+            this.solution = solution;
+            this.index = index;
+        }
+    }
+
+    // One solved path as canonical states and (piece, signed slide) moves; a piece is its
+    // letter, or by shape its index in the order as a char
+    private static final class Solution {
+        final String scope;
+        final String key;
+        final boolean shortest; // a shortest path, so every suffix is indexed too
+        final boolean solved;
+        final String[] states;
+        final char[] pieces;
+        final int[] deltas;
+        final long bytes;
+
+        Solution(String scope, boolean shortest, boolean solved, String[] states, char[] pieces, int[] deltas) {
+            this.scope = scope;
+            this.key = scope + states[0];
+            this.shortest = shortest;
+            this.solved = solved;
+            this.states = states;
+            this.pieces = pieces;
+            this.deltas = deltas;
+            long size = 64 + 6L * pieces.length;
+            for (String state : states) size += 2L * state.length() + STATE_OVERHEAD;
+            this.bytes = size;
+        }
+
+        static Solution of(String scope, boolean shortest, PieceOrder order, State start, List<State> path) {
+            Layout layout = start.layout;
+            if (path.isEmpty()) {
+                return new Solution(scope, shortest, false, new String[] {order.describe(start.key)}, new char[0], new int[0]);
+            }
+            int moves = path.size() - 1;
+            String[] states = new String[moves + 1];
+            char[] pieces = new char[moves];
+            int[] deltas = new int[moves];
+            states[0] = order.describe(path.get(0).key);
+            for (int m = 0; m < moves; m++) {
+                long[] before = path.get(m).key;
+                long[] after = path.get(m + 1).key;
+                for (int c = 0; c < layout.getNumPieces(); c++) {
+                    int k = order.toOriginal(c);
+                    int delta = layout.getOffset(after, k) - layout.getOffset(before, k);
+                    if (delta != 0) {
+                        pieces[m] = order.isByShape() ? (char) c : layout.getColor(k);
+                        deltas[m] = delta;
+                        break;
+                    }
+                }
+                states[m + 1] = order.describe(after);
+            }
+            return new Solution(scope, shortest, true, states, pieces, deltas);
+        }
+
+        // States from the given position to the goal, rebuilt on the layout of start with
+        // the pieces of start; order is start's, in the same mode as this solution's
+        List<State> replay(State start, PieceOrder order, int from) {
+            if (!solved) return new ArrayList<>();
+            Layout layout = start.layout;
+            MoveGenerator generator = new MoveGenerator(layout);
+            List<State> path = new ArrayList<>(pieces.length - from + 1);
+            path.add(start);
+            State current = start;
+            long[] key = start.key.clone();
+            for (int m = from; m < pieces.length; m++) {
+                int index = order.isByShape() ? order.toOriginal(pieces[m]) : indexOf(layout, pieces[m]);
+                layout.setOffset(key, index, layout.getOffset(key, index) + deltas[m]);
+                current = new State(layout, key.clone(), current, generator.getMove(index, deltas[m]),
+                        current.gCost + 1, 0);
+                path.add(current);
+            }
+            return path;
+        }
+
+        private static int indexOf(Layout layout, char color) {
+            for (int k = 0; k < layout.getNumPieces(); k++) {
+                if (layout.getColor(k) == color) return k;
+            }
+            throw new IllegalArgumentException("Cached move of piece " + color + " on a board without it");
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(scope);
+            out.writeBoolean(shortest);
+            out.writeBoolean(solved);
+            out.writeInt(states.length);
+            for (String state : states) out.writeUTF(state);
+            for (int m = 0; m < pieces.length; m++) {
+                out.writeChar(pieces[m]);
+                out.writeInt(deltas[m]);
+            }
+        }
+
+        static Solution read(DataInputStream in) throws IOException {
+            String scope = in.readUTF();
+            boolean shortest = in.readBoolean();
+            boolean solved = in.readBoolean();
+            int count = in.readInt();
+            if (count < 1) throw new IOException("Solution without states");
+            String[] states = new String[count];
+            for (int s = 0; s < count; s++) states[s] = in.readUTF();
+            char[] pieces = new char[count - 1];
+            int[] deltas = new int[count - 1];
+            for (int m = 0; m < count - 1; m++) {
+                pieces[m] = in.readChar();
+                deltas[m] = in.readInt();
+            }
+            return new Solution(scope, shortest, solved, states, pieces, deltas);
+        }
+    }
+}
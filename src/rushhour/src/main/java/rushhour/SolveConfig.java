@@ -0,0 +1,41 @@
+package rushhour;
+
+// Hard budgets of one solve. A solve that uses one up stops and reports which one
+// (SolveResult.Reason) along with the best state it reached.
+public class SolveConfig {
+    public static final SolveConfig UNLIMITED = new SolveConfig(Long.MAX_VALUE, 0, Long.MAX_VALUE);
+
+    private final long maxNodes;
+    private final long timeLimitMillis;
+    private final long maxBytes;
+
+    // timeLimitMillis 0 means no time limit. maxBytes bounds the estimated heap the
+    // search retains: every state it creates (with its key and queue slot, freed or
+    // not) plus its hash tables, so it errs on the side of stopping early
+    public SolveConfig(long maxNodes, long timeLimitMillis, long maxBytes) {
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("Node limit must be at least 1, but found: " + maxNodes);
+        }
+        if (timeLimitMillis < 0) {
+            throw new IllegalArgumentException("Time limit must not be negative, but found: " + timeLimitMillis);
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Memory limit must be at least 1 byte, but found: " + maxBytes);
+        }
+        this.maxNodes = maxNodes;
+        this.timeLimitMillis = timeLimitMillis;
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,87 @@
+package rushhour;
+
+import java.util.List;
+
+// Outcome of Solver.solve(mode, config): why the search stopped, the solution if
+// it found one, and otherwise the path to the lowest-h state it expanded, so a
+// stopped solve still shows how far it got.
+public class SolveResult {
+    public enum Reason {
+        SOLVED, UNSOLVABLE, NODE_LIMIT, TIME_LIMIT, MEMORY_LIMIT, CANCELLED
+    }
+
+    private final Reason reason;
+    private final List<State> path;
+    private final List<State> bestPath;
+    private final long expanded;
+    private final long retainedBytes;
+    private final SearchMetrics metrics;
+    private Solution solution; // built from path on first use
+
+    public SolveResult(Reason reason, List<State> path, List<State> bestPath, long expanded, long retainedBytes,
+            SearchMetrics metrics) {
+        this.reason = reason;
+        this.path = path;
+        this.bestPath = bestPath;
+        this.expanded = expanded;
+        this.retainedBytes = retainedBytes;
+        this.metrics = metrics;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public boolean isSolved() {
+        return reason == Reason.SOLVED;
+    }
+
+    // True if a budget or a cancellation stopped the search, so nothing is known about the puzzle
+    public boolean isStopped() {
+        return reason != Reason.SOLVED && reason != Reason.UNSOLVABLE;
+    }
+
+    // Initial state to goal; empty unless solved
+    public List<State> getPath() {
+        return path;
+    }
+
+    // The path as a compact move list, null unless solved
+    public Solution getSolution() {
+        if (solution == null && isSolved()) solution = Solution.of(path);
+        return solution;
+    }
+
+    // Initial state to the lowest-h state expanded (the goal when solved, the initial
+    // state if the search expanded nothing better or uses no heuristic)
+    public List<State> getBestPath() {
+        return bestPath;
+    }
+
+    public State getBestState() {
+        return bestPath.get(bestPath.size() - 1);
+    }
+
+    public int getBestH() {
+        return getBestState().hCost;
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    // Estimated heap retained by the search at its end, the figure the memory budget checks
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return reason + ": " + (isSolved() ? (path.size() - 1) + " steps" : "best h " + getBestH()
+                + " after " + (bestPath.size() - 1) + " steps") + ", " + expanded + " nodes, " + retainedBytes + " bytes";
+    }
+}
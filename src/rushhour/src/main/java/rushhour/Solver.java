@@ -1,79 +1,602 @@
 package rushhour;
 
-import java.util.Comparator;
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 
 public class Solver {
     private Board board;
     private List<Piece> pieces;
     private PrimaryPiece primaryPiece;
+    private Heuristic heuristic;
     private int numMoves = 0;
     private boolean foundSolution = false;
+    private int visitedStates = 0;
+    private double bytesPerState = 0;
+    private long incrementalEvaluations = 0;
+    private long fullEvaluations = 0;
+    private QueueType queueType = QueueType.AUTO;
+    private NodeBucketQueue.TieBreak tieBreak = null;
+    private boolean verbose = true;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int goalSeedLimit = 1 << 20;
+    private int transpositionTableSize = 1 << 16;
+    private List<IterationStats> iterationStats = new java.util.ArrayList<>();
+    private SolutionCache solutionCache = null;
+    private Path databaseDirectory = PositionDatabase.defaultDirectory();
+    private boolean interchangeablePieces = false;
+    private MovePruning movePruning = MovePruning.NONE;
+    private long nodeLimit = Long.MAX_VALUE;
+    private long timeLimitMillis = 0;
+    private long memoryLimit = Long.MAX_VALUE;
+    private SearchLimit limit = new SearchLimit(SolveConfig.UNLIMITED);
+    private State closestState = null; // lowest h expanded so far
+    private boolean limitReached = false;
+    private BooleanSupplier cancellation = null;
+    private ProgressListener progressListener = null;
+    private long progressIntervalMillis = 0;
+    private long memoryBytes = 0;
+    private boolean phaseTiming = false;
+    private SearchMetrics metrics = new SearchMetrics(false);
 
     public Solver(Board board, List<Piece> pieces, PrimaryPiece primaryPiece) {
+        this(board, pieces, primaryPiece, Heuristics.NONE);
+    }
+
+    public Solver(Board board, List<Piece> pieces, PrimaryPiece primaryPiece, Heuristic heuristic) {
         this.board = board;
         this.pieces = pieces;
         this.primaryPiece = primaryPiece;
+        this.heuristic = heuristic;
     }
 
+    // PARALLEL_* run hash-distributed A* (HDA*) over setThreads() workers;
+    // BIDIRECTIONAL meets a backward search from every goal configuration;
+    // IDA_STAR is iterative deepening A* in constant memory;
+    // DATABASE looks the answer up in a PositionDatabase of the layout, or runs A* without one
     public enum SearchMode {
-        GREEDY, A_STAR, UCS
+        GREEDY, A_STAR, UCS, PARALLEL_A_STAR, PARALLEL_UCS, BIDIRECTIONAL, IDA_STAR, DATABASE
     }
 
+    // AUTO picks the bucket queue whenever the priorities are bounded (UCS, or a heuristic whose
+    // maxValue is not -1) and the binary heap otherwise
+    public enum QueueType {
+        AUTO, HEAP, BUCKET
+    }
+
+    // Path from the initial state to a goal, empty if there is none or a limit set
+    // through the setters stopped the search first
     public List<State> solve(SearchMode searchMode) {
+        return solve(searchMode, new SolveConfig(nodeLimit, timeLimitMillis, memoryLimit)).getPath();
+    }
+
+    // Like solve(searchMode) under the budgets of config instead of the setters', telling
+    // why the search stopped and how close it got
+    public SolveResult solve(SearchMode searchMode, SolveConfig config) {
         numMoves = 0;
         foundSolution = false;
-        
-        PriorityQueue<State> openSet;
+        iterationStats = new java.util.ArrayList<>();
+        incrementalEvaluations = 0;
+        fullEvaluations = 0;
+        limitReached = false;
+        memoryBytes = 0;
+        metrics = new SearchMetrics(phaseTiming);
+        long start = System.nanoTime();
+
+        State initialState = new State(this.board, this.pieces, null, null, 0, this.primaryPiece);
+        limit = new SearchLimit(config, cancellation, progressListener, progressIntervalMillis, 0);
+        closestState = initialState;
+        if (!evaluateRoot(initialState)) {
+            limitReached = true;
+            metrics.totalNanos = System.nanoTime() - start;
+            return new SolveResult(limit.getReason(), new java.util.ArrayList<>(), initialState.getMoves(), 0, 0, metrics);
+        }
+        limit.setInitialH(initialState.hCost);
+        if (solutionCache != null) {
+            List<State> cached = solutionCache.lookup(initialState, searchMode, heuristic, movePruning,
+                    interchangeablePieces);
+            if (cached != null) {
+                foundSolution = !cached.isEmpty();
+                if (verbose) {
+                    System.out.println("Solution cache hit" + (foundSolution ? ", " + (cached.size() - 1) + " steps." : ", no solution."));
+                }
+                metrics.totalNanos = System.nanoTime() - start;
+                return new SolveResult(foundSolution ? SolveResult.Reason.SOLVED : SolveResult.Reason.UNSOLVABLE,
+                        cached, foundSolution ? cached : initialState.getMoves(), 0, 0, metrics);
+            }
+        }
+        List<State> path = search(searchMode, initialState);
+        limitReached = !foundSolution && limit.isReached();
+        metrics.expanded = numMoves;
+        metrics.peakClosed = visitedStates;
+        metrics.memoryBytes = memoryBytes;
+        metrics.totalNanos = System.nanoTime() - start;
+        // a search stopped by the limit proves nothing about the puzzle
+        if (solutionCache != null && !limitReached) {
+            solutionCache.put(initialState, path, searchMode, heuristic, movePruning, interchangeablePieces);
+        }
 
-        if (searchMode == SearchMode.A_STAR) {
-            openSet = new PriorityQueue<>(Comparator.comparingInt(State::getFCost));
-        } 
-        else if (searchMode == SearchMode.GREEDY) {
-            openSet = new PriorityQueue<>(Comparator.comparingInt(s -> s.hCost));
-        } 
-        else {
-            openSet = new PriorityQueue<>(Comparator.comparingInt(s -> s.gCost));
+        SolveResult.Reason reason;
+        if (foundSolution) {
+            reason = SolveResult.Reason.SOLVED;
+        } else if (limitReached) {
+            reason = limit.getReason();
+        } else {
+            reason = SolveResult.Reason.UNSOLVABLE;
         }
+        return new SolveResult(reason, path, foundSolution ? path : closestState.getMoves(), numMoves,
+                limit.getRetainedBytes(), metrics);
+    }
 
-        Set<State> closedSet = new HashSet<>();
+    // h of the root through the heuristic bound to its layout, under the limit: binding
+    // may build a table first (a pattern database), the longest step of some solves.
+    // False if the limit stopped the solve before h was known
+    private boolean evaluateRoot(State root) {
+        LaneBoard board = new LaneBoard(root.layout);
+        board.load(root.key);
+        try {
+            root.hCost = heuristic.forLayout(board, limit::interrupted).evaluate(board);
+            return true;
+        } catch (CancellationException e) {
+            return false;
+        }
+    }
 
-        State initialState = new State(this.board, this.pieces, null, null, 0, this.primaryPiece);
-        openSet.add(initialState);
-        closedSet.add(initialState);
+    private List<State> search(SearchMode searchMode, State initialState) {
+        if (searchMode == SearchMode.PARALLEL_A_STAR || searchMode == SearchMode.PARALLEL_UCS) {
+            return solveParallel(initialState, searchMode == SearchMode.PARALLEL_A_STAR);
+        }
+        if (searchMode == SearchMode.IDA_STAR) {
+            return solveIterativeDeepening(initialState);
+        }
+        if (searchMode == SearchMode.DATABASE) {
+            List<State> path = solveDatabase(initialState);
+            if (path != null) return path;
+            if (verbose) {
+                System.out.println("No position database for this puzzle, falling back to A*.");
+            }
+            return search(SearchMode.A_STAR, initialState);
+        }
+        if (searchMode == SearchMode.BIDIRECTIONAL) {
+            BidirectionalSearch search = new BidirectionalSearch(initialState.layout, goalSeedLimit, metrics);
+            List<State> goals;
+            try {
+                goals = search.enumerateGoals(initialState.key, limit::interrupted);
+            } catch (CancellationException e) {
+                return new java.util.ArrayList<>();
+            }
+            if (goals != null) {
+                return solveBidirectional(search, initialState, goals);
+            }
+            // too many goal configurations to seed, a forward search is cheaper
+            if (verbose) {
+                System.out.println("More than " + goalSeedLimit + " goal configurations, falling back to UCS.");
+            }
+            return search(SearchMode.UCS, initialState);
+        }
+        // nodes live in the arena as primitives; only the returned paths become State objects
+        Layout layout = initialState.layout;
+        NodeArena arena = new NodeArena(layout.getWords());
+        // every generated key maps to its node; A* keeps the best g per state there and
+        // reopens a state reached more cheaply, so paths stay optimal under an admissible
+        // heuristic that is not consistent
+        NodeMap nodes = new NodeMap(arena);
+        boolean reopen = searchMode == SearchMode.A_STAR;
+        NodeQueue openSet = createOpenList(searchMode, layout, arena);
+        HeuristicEvaluator evaluator = new HeuristicEvaluator(heuristic);
+        MoveGenerator generator = new MoveGenerator(layout);
+        long started = metrics.clock();
+        long retained = 0;
+
+        int root = arena.addRoot(initialState.key, initialState.hCost);
+        nodes.put(root, initialState.key);
+        openSet.add(root, priority(searchMode, 0, initialState.hCost));
+        int closest = root;
+        long[] key = new long[layout.getWords()];
         while (!openSet.isEmpty()) {
-            State currentState = openSet.poll();
+            metrics.open(openSet.size());
+            long polling = metrics.clock();
+            int current = openSet.poll();
+            metrics.queueNanos += metrics.clock() - polling;
+            arena.copyKey(current, key);
+            if (reopen && nodes.get(key) != current) continue; // superseded
+            int g = arena.g(current);
+            int h = arena.h(current);
+            if (limit.reached(numMoves, openSet.size() + 1, h)) break;
             numMoves++;
+            if (h < arena.h(closest)) closest = current;
 
-            if (currentState.isGoal()) {
+            if (layout.isGoal(key)) {
                 foundSolution = true;
-                System.out.println("Found solution in " + numMoves + " nodes.");
-                return currentState.getMoves();
+                metrics.finish(started);
+                recordVisited(nodes, arena);
+                recordEvaluations(evaluator.getIncremental(), evaluator.getFull());
+                if (verbose) {
+                    System.out.println("Found solution in " + numMoves + " nodes.");
+                    System.out.println(visitedSummary());
+                }
+                return arena.path(current, initialState, generator);
             }
 
-            List<State> successors = currentState.generateSuccessors();
-            for (State successor : successors) {
-                if (!closedSet.contains(successor)) {
-                    openSet.add(successor);
-                    closedSet.add(successor);
+            int lastPiece = arena.piece(current);
+            int lastTo = lastPiece >= 0 ? layout.getOffset(key, lastPiece) : 0;
+            int lastFrom = lastTo - arena.delta(current);
+            generator.load(key);
+            generator.forEachSuccessor((gen, pieceIndex, delta) -> {
+                int from = layout.getOffset(key, pieceIndex);
+                if (movePruning.skip(layout, lastPiece, lastFrom, lastTo, pieceIndex, from, from + delta)) {
+                    metrics.pruned++;
+                    return;
                 }
+                metrics.generated++;
+                long t0 = metrics.clock();
+                int known = nodes.get(gen.getKey());
+                boolean duplicate = known != NodeArena.NONE && (!reopen || arena.g(known) <= g + 1);
+                long t1 = metrics.clock();
+                metrics.hashNanos += t1 - t0;
+                if (duplicate) {
+                    metrics.duplicates++;
+                    return;
+                }
+                int childH = evaluator.child(gen.getBoard(), h, pieceIndex, delta);
+                long t2 = metrics.clock();
+                metrics.heuristicNanos += t2 - t1;
+                int child = arena.add(current, gen.getKey(), pieceIndex, delta, g + 1, childH);
+                long t3 = metrics.clock();
+                nodes.put(child, gen.getKey());
+                long t4 = metrics.clock();
+                openSet.add(child, priority(searchMode, g + 1, childH));
+                metrics.hashNanos += t4 - t3;
+                metrics.queueNanos += metrics.clock() - t4;
+            });
+
+            long now = arena.memoryBytes() + nodes.memoryBytes();
+            limit.retain(now - retained);
+            retained = now;
+        }
+
+        metrics.finish(started);
+        recordVisited(nodes, arena);
+        recordEvaluations(evaluator.getIncremental(), evaluator.getFull());
+        if (closest != root) {
+            List<State> best = arena.path(closest, initialState, generator);
+            closestState = best.get(best.size() - 1);
+        }
+        if (verbose) {
+            System.out.println(stopMessage());
+            System.out.println("numMoves: " + numMoves);
+            System.out.println(visitedSummary());
+        }
+        return new java.util.ArrayList<>();
+    }
+
+    private List<State> solveParallel(State initialState, boolean useHeuristic) {
+        HashDistributedSearch search = new HashDistributedSearch(initialState.layout, threads, heuristic, useHeuristic, limit, metrics);
+        List<State> path = search.search(initialState);
+        numMoves = (int) search.getExpanded();
+        State best = search.getBestState(initialState);
+        if (best != null && best.hCost < closestState.hCost) {
+            closestState = best;
+        }
+        visitedStates = search.getStored();
+        bytesPerState = 0;
+        memoryBytes = search.getMemoryBytes();
+        recordEvaluations(search.getIncrementalEvaluations(), search.getFullEvaluations());
+
+        if (!path.isEmpty()) {
+            foundSolution = true;
+            if (verbose) {
+                System.out.println("Found solution in " + numMoves + " nodes on " + threads + " threads.");
             }
+            return path;
         }
+        if (verbose) {
+            System.out.println(stopMessage());
+            System.out.println("numMoves: " + numMoves);
+        }
+        return new java.util.ArrayList<>();
+    }
+
+    private List<State> solveBidirectional(BidirectionalSearch search, State initialState, List<State> goals) {
+        List<State> path = search.search(initialState, goals, limit);
+        numMoves = (int) search.getExpanded();
+        visitedStates = search.getStored();
+        bytesPerState = 0;
+        memoryBytes = search.getMemoryBytes();
 
-        System.out.println("No solution found.");
-        System.out.println("numMoves: " + numMoves);
+        if (!path.isEmpty()) {
+            foundSolution = true;
+            if (verbose) {
+                System.out.println("Found solution in " + numMoves + " nodes from " + search.getSeeds() + " goal seeds.");
+            }
+            return path;
+        }
+        if (verbose) {
+            System.out.println(stopMessage());
+            System.out.println("numMoves: " + numMoves);
+        }
+        return new java.util.ArrayList<>();
+    }
+
+    private List<State> solveIterativeDeepening(State initialState) {
+        IterativeDeepeningSearch search = new IterativeDeepeningSearch(initialState.layout, heuristic, transpositionTableSize, movePruning, metrics);
+        State goal = search.search(initialState, limit);
+        numMoves = (int) search.getExpanded();
+        closestState = search.getBestState(initialState);
+        iterationStats = search.getIterations();
+        recordEvaluations(search.getIncrementalEvaluations(), search.getFullEvaluations());
+        visitedStates = 0;
+        bytesPerState = 0;
+        memoryBytes = search.getMemoryBytes();
+
+        if (verbose) {
+            for (int i = 0; i < iterationStats.size(); i++) {
+                System.out.println("Iteration " + (i + 1) + ", " + iterationStats.get(i));
+            }
+        }
+        if (goal != null) {
+            foundSolution = true;
+            if (verbose) {
+                System.out.println("Found solution in " + numMoves + " nodes, " + iterationStats.size()
+                        + " iterations, " + search.getTableBytes() + " table bytes.");
+            }
+            return goal.getMoves();
+        }
+        if (verbose) {
+            System.out.println(stopMessage());
+            System.out.println("numMoves: " + numMoves);
+        }
         return new java.util.ArrayList<>();
     }
 
+    // null if the layout has no database or its database lacks the initial state
+    private List<State> solveDatabase(State initialState) {
+        PieceOrder order = interchangeablePieces ? PieceOrder.byShape(initialState.layout, initialState.key)
+                : PieceOrder.byLetter(initialState.layout);
+        PositionDatabase database = PositionDatabase.find(databaseDirectory, order);
+        if (database == null) return null;
+        List<State> path;
+        try {
+            path = database.solve(initialState, order);
+        } catch (IOException e) {
+            if (verbose) {
+                System.out.println("Position database unusable: " + e.getMessage());
+            }
+            return null;
+        }
+        if (path == null) return null;
+
+        foundSolution = !path.isEmpty();
+        numMoves = Math.max(path.size() - 1, 0); // one successor scan per step
+        visitedStates = 0;
+        bytesPerState = 0;
+        memoryBytes = 0;
+        if (foundSolution) closestState = path.get(path.size() - 1);
+        if (verbose) {
+            System.out.println(foundSolution ? "Found solution in the position database, " + (path.size() - 1) + " steps."
+                    : "The position database has no solution.");
+        }
+        return path;
+    }
+
+    private NodeQueue createOpenList(SearchMode searchMode, Layout layout, NodeArena arena) {
+        // UCS orders by g alone, so any heuristic will do; the others need h bounded
+        int maxH = searchMode == SearchMode.UCS ? 0 : heuristic.maxValue(layout);
+        if (queueType == QueueType.BUCKET || (queueType == QueueType.AUTO && maxH >= 0)) {
+            NodeBucketQueue.TieBreak order = tieBreak;
+            if (order == null) {
+                order = defaultTieBreak(searchMode);
+            }
+            // greedy priorities are h itself, so the bound sizes the buckets exactly
+            if (searchMode == SearchMode.GREEDY && maxH >= 0) {
+                return new NodeBucketQueue(order, arena, maxH + 1);
+            }
+            return new NodeBucketQueue(order, arena);
+        }
+        return new NodeHeap();
+    }
+
+    private static NodeBucketQueue.TieBreak defaultTieBreak(SearchMode searchMode) {
+        if (searchMode == SearchMode.A_STAR) return NodeBucketQueue.TieBreak.HIGH_G;
+        if (searchMode == SearchMode.GREEDY) return NodeBucketQueue.TieBreak.FIFO;
+        return NodeBucketQueue.TieBreak.LIFO;
+    }
+
+    private static int priority(SearchMode searchMode, int g, int h) {
+        if (searchMode == SearchMode.A_STAR) return g + h;
+        if (searchMode == SearchMode.GREEDY) return h;
+        return g;
+    }
+
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    public void setQueueType(QueueType queueType) {
+        this.queueType = queueType;
+    }
+
+    // null restores the per-mode default (HIGH_G for A*, FIFO for greedy, LIFO for UCS)
+    public void setTieBreak(NodeBucketQueue.TieBreak tieBreak) {
+        this.tieBreak = tieBreak;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, but found: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    // Above this many goal configurations BIDIRECTIONAL runs as plain UCS
+    public void setGoalSeedLimit(int goalSeedLimit) {
+        if (goalSeedLimit < 1) {
+            throw new IllegalArgumentException("Goal seed limit must be at least 1, but found: " + goalSeedLimit);
+        }
+        this.goalSeedLimit = goalSeedLimit;
+    }
+
+    // Entries in the IDA_STAR transposition table; 0 turns the table off
+    public void setTranspositionTableSize(int transpositionTableSize) {
+        if (transpositionTableSize != 0 && transpositionTableSize < 2) {
+            throw new IllegalArgumentException("Transposition table size must be 0 or at least 2, but found: " + transpositionTableSize);
+        }
+        this.transpositionTableSize = transpositionTableSize;
+    }
+
+    // Shared across solvers and solves; null (the default) always searches
+    public void setSolutionCache(SolutionCache solutionCache) {
+        this.solutionCache = solutionCache;
+    }
+
+    // Where DATABASE mode looks for position databases; rushhour.db.dir or db by default
+    public void setDatabaseDirectory(Path databaseDirectory) {
+        this.databaseDirectory = databaseDirectory;
+    }
+
+    // Successor rules for GREEDY, A_STAR, UCS and IDA_STAR; NONE by default, though IDA_STAR
+    // always applies at least SAME_PIECE. The other modes expand every move
+    public void setMovePruning(MovePruning movePruning) {
+        this.movePruning = movePruning;
+    }
+
+    // Lets the solution cache and position databases treat same-size pieces sharing a lane
+    // as interchangeable (PieceOrder.byShape), so puzzles that differ only in those pieces'
+    // letters share results. Paths still move this puzzle's own pieces
+    public void setInterchangeablePieces(boolean interchangeablePieces) {
+        this.interchangeablePieces = interchangeablePieces;
+    }
+
+    // Expanded nodes allowed per solve; a solve that runs out returns no path and
+    // isLimitReached() tells it apart from an unsolvable puzzle
+    public void setNodeLimit(long nodeLimit) {
+        if (nodeLimit < 1) {
+            throw new IllegalArgumentException("Node limit must be at least 1, but found: " + nodeLimit);
+        }
+        this.nodeLimit = nodeLimit;
+    }
+
+    // Estimated bytes a solve may retain (see SolveConfig); a solve that runs out stops like
+    // one that hits the node limit
+    public void setMemoryLimit(long memoryLimit) {
+        if (memoryLimit < 1) {
+            throw new IllegalArgumentException("Memory limit must be at least 1 byte, but found: " + memoryLimit);
+        }
+        this.memoryLimit = memoryLimit;
+    }
+
+    // Wall-clock milliseconds allowed per solve; 0 (the default) means no limit
+    public void setTimeLimit(long timeLimitMillis) {
+        if (timeLimitMillis < 0) {
+            throw new IllegalArgumentException("Time limit must not be negative, but found: " + timeLimitMillis);
+        }
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    // Checked every 256 expansions (e.g. a JavaFX Task's isCancelled); once it returns true
+    // the solve stops as if it hit its limit, and isCancelled() tells the two apart.
+    // null (the default) makes solves uncancellable
+    public void setCancellation(BooleanSupplier cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    // Called with a progress sample at most every intervalMillis while a solve runs; null stops reporting
+    public void setProgressListener(ProgressListener progressListener, long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("Progress interval must not be negative, but found: " + intervalMillis);
+        }
+        this.progressListener = progressListener;
+        this.progressIntervalMillis = intervalMillis;
+    }
+
+    // Measures where the time of each solve goes (see SearchMetrics); off by default,
+    // as it reads the clock several times per generated state
+    public void setPhaseTiming(boolean phaseTiming) {
+        this.phaseTiming = phaseTiming;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
     public int getNumMoves() {
         return numMoves;
     }
 
+    // Counters and phase times of the last solve
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Per-iteration work of the last IDA_STAR solve, empty for other modes
+    public List<IterationStats> getIterationStats() {
+        return iterationStats;
+    }
+
     public boolean hasFoundSolution() {
         return foundSolution;
     }
+
+    // True if the last solve stopped at the node, time or memory limit, or was cancelled, without a path
+    public boolean isLimitReached() {
+        return limitReached;
+    }
+
+    public boolean isCancelled() {
+        return limitReached && limit.isCancelled();
+    }
+
+    // Child h values derived from the parent's h during the last solve
+    public long getIncrementalEvaluations() {
+        return incrementalEvaluations;
+    }
+
+    // Child h values computed from scratch during the last solve
+    public long getFullEvaluations() {
+        return fullEvaluations;
+    }
+
+    public int getVisitedStates() {
+        return visitedStates;
+    }
+
+    // Table bytes per stored state (node arena and its index for the sequential modes),
+    // useful for sizing -Xmx
+    public double getBytesPerState() {
+        return bytesPerState;
+    }
+
+    // Bytes of the state tables of the last solve (node arena and index, visited sets,
+    // transposition table); they only grow during a solve, so this is also their peak
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    private void recordVisited(NodeMap nodes, NodeArena arena) {
+        visitedStates = nodes.size();
+        memoryBytes = nodes.memoryBytes() + arena.memoryBytes();
+        bytesPerState = visitedStates == 0 ? 0 : (double) memoryBytes / visitedStates;
+    }
+
+    private void recordEvaluations(long incremental, long full) {
+        incrementalEvaluations = incremental;
+        fullEvaluations = full;
+    }
+
+    private String stopMessage() {
+        if (limit.isCancelled()) return "Search cancelled.";
+        return limit.isReached() ? "Search limit reached." : "No solution found.";
+    }
+
+    private String visitedSummary() {
+        return String.format("Visited %d states, %.1f bytes/state, %d incremental / %d full h evaluations",
+                visitedStates, bytesPerState, incrementalEvaluations, fullEvaluations);
+    }
     
 }
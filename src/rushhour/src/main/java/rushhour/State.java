@@ -1,28 +1,56 @@
 package rushhour;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class State {
-    Board boardConfiguration; 
-    List<Piece> piecesState;   
-    State parent;            
-    Move lastMove; 
+    // Board and pieces are only built on demand (getPieces, toString); the search
+    // itself works on the packed key
+    Board boardConfiguration;
+    List<Piece> piecesState;
+    State parent;
+    Move lastMove;
     int gCost;
     int hCost;
     PrimaryPiece primaryPieceRef;
+    Layout layout;
+    long[] key;
 
     public State(Board boardConfig, List<Piece> pieces, State parent, Move lastMove, int gCost, PrimaryPiece primaryPieceRef) {
-        this.piecesState = new ArrayList<>();
+        this(boardConfig, pieces, parent, lastMove, gCost, primaryPieceRef, Heuristics.NONE);
+    }
+
+    public State(Board boardConfig, List<Piece> pieces, State parent, Move lastMove, int gCost, PrimaryPiece primaryPieceRef, Heuristic heuristic) {
+        this.piecesState = new ArrayList<>(pieces);
         this.boardConfiguration = boardConfig;
-        for (Piece p : pieces) {
-            this.piecesState.add(p); // Pieces must be cloneable
-        }
         this.parent = parent;
         this.lastMove = lastMove;
         this.gCost = gCost;
         this.primaryPieceRef = primaryPieceRef;
-        this.hCost = Heuristics.calculateH(this);
+        this.layout = parent != null ? parent.layout : new Layout(boardConfig, pieces);
+        this.key = layout.encode(pieces);
+        this.hCost = Heuristics.evaluate(heuristic, this);
+    }
+
+    State(Layout layout, long[] key, State parent, Move lastMove, int gCost, int hCost) {
+        this.layout = layout;
+        this.key = key;
+        this.parent = parent;
+        this.lastMove = lastMove;
+        this.gCost = gCost;
+        this.hCost = hCost;
+    }
+
+    // Estimated heap bytes of one search state with its key and an open-list slot
+    // (object header and fields, the key array, one reference), for memory budgets
+    static long retainedBytes(int words) {
+        return 48 + 16 + 8L * words + 8;
+    }
+
+    // Materializes the successor currently held by the generator
+    State child(MoveGenerator generator, int pieceIndex, int delta, int childH) {
+        return new State(layout, generator.getKey().clone(), this, generator.getMove(pieceIndex, delta), gCost + 1, childH);
     }
 
     public int getFCost() {
@@ -30,12 +58,12 @@ public class State {
     }
 
     public boolean isGoal() {
-        return primaryPieceRef.getWin();
+        return layout.isGoal(key);
     }
 
     @Override
     public int hashCode() {
-        return boardConfiguration.toString().hashCode(); 
+        return Layout.hash(key);
     }
 
     @Override
@@ -43,58 +71,22 @@ public class State {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         State otherState = (State) obj;
-        return boardConfiguration.toString().equals(otherState.boardConfiguration.toString());
+        return Arrays.equals(key, otherState.key);
     }
 
     @Override
     public String toString() {
+        materialize();
         return boardConfiguration.toString();
     }
 
     // Helper to generate successor states
-    public List<State> generateSuccessors() {
+    public List<State> generateSuccessors(Heuristic heuristic) {
         List<State> successors = new ArrayList<>();
-        // check for all possible moves
-        for (Piece piece : piecesState) {
-            for (int i = 0; i < 2; i++){
-                Board newBoard = new Board(boardConfiguration);
-                List<Piece> newPieces = new ArrayList<>();
-                Piece chosenPiece = null;
-                PrimaryPiece newPrimaryPiece = null;
-                for (Piece p : piecesState) {
-                    Piece newPiece;
-                    if (p == primaryPieceRef){
-                        newPiece = new PrimaryPiece((PrimaryPiece) p);
-                        newPrimaryPiece = (PrimaryPiece) newPiece;
-                    }
-                    else {
-                        newPiece = new Piece(p);
-                    }
-                    newPieces.add(newPiece); 
-                    if (p == piece) chosenPiece = newPiece;
-                }
-                newBoard.buildBoard(newPieces);
-                
-                State newState;
-                if (i == 0) {
-                    String direction = chosenPiece.isVertical() ? "UP" : "LEFT";
-                    Move move = new Move(chosenPiece.getColor(), direction);
-                    while (chosenPiece.moveBackward(newBoard)){
-                        newState = new State(newBoard, newPieces, this, move, gCost + 1, newPrimaryPiece);
-                        successors.add(newState);
-                    }
-                } 
-                else {
-                    String direction = chosenPiece.isVertical() ? "DOWN" : "RIGHT";
-                    Move move = new Move(chosenPiece.getColor(), direction);
-                    while (chosenPiece.moveForward(newBoard)){
-                        newState = new State(newBoard, newPieces, this, move, gCost + 1, newPrimaryPiece);
-                        successors.add(newState);
-                    }
-                }
-            }
-        }
-
+        MoveGenerator generator = new MoveGenerator(layout);
+        generator.load(key);
+        generator.forEachSuccessor((gen, pieceIndex, delta) ->
+                successors.add(child(gen, pieceIndex, delta, heuristic.evaluate(gen.getBoard()))));
         return successors;
     }
 
@@ -132,7 +124,26 @@ public class State {
     }
 
     public List<Piece> getPieces() {
+        materialize();
         return piecesState;
     }
 
+    public Board getBoard() {
+        materialize();
+        return boardConfiguration;
+    }
+
+    public PrimaryPiece getPrimaryPiece() {
+        materialize();
+        return primaryPieceRef;
+    }
+
+    private void materialize() {
+        if (piecesState != null) return;
+        piecesState = layout.createPieces(key);
+        primaryPieceRef = (PrimaryPiece) piecesState.get(layout.getPrimaryIndex());
+        boardConfiguration = layout.createBoard();
+        boardConfiguration.buildBoard(piecesState);
+    }
+
 }
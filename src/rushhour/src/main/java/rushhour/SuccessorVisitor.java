@@ -0,0 +1,8 @@
+package rushhour;
+
+// Called once per legal slide while the generator holds the child configuration.
+// The generator's board, pieces and key are only valid during the call.
+@FunctionalInterface
+public interface SuccessorVisitor {
+    void visit(MoveGenerator generator, int pieceIndex, int delta);
+}
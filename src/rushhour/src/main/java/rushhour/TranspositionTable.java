@@ -0,0 +1,84 @@
+package rushhour;
+
+// Fixed-size table of (state key, depth reached) for iterative deepening. Memory
+// is allocated once and never grows; when a bucket is full an entry is replaced.
+// Each bucket holds two entries: a depth-preferred one that keeps the shallowest
+// state of the current iteration (it roots the largest subtree), and an
+// always-replace one for everything else.
+public class TranspositionTable {
+    private final int words;
+    private final long[] keys;
+    private final int[] depths;
+    private final int[] stamps; // iteration that wrote the entry, 0 if empty
+    private final int mask;
+
+    // entries is rounded down to a power of two, at least two
+    public TranspositionTable(int words, int entries) {
+        if (entries < 2) {
+            throw new IllegalArgumentException("Transposition table needs at least 2 entries, but found: " + entries);
+        }
+        int capacity = Integer.highestOneBit(entries);
+        this.words = words;
+        this.keys = new long[capacity * words];
+        this.depths = new int[capacity];
+        this.stamps = new int[capacity];
+        this.mask = (capacity >>> 1) - 1;
+    }
+
+    // True if this iteration already reached the state at the same or a smaller depth
+    public boolean contains(long[] key, int depth, int stamp) {
+        int slot = (Layout.hash(key) & mask) << 1;
+        for (int s = slot; s < slot + 2; s++) {
+            if (stamps[s] == stamp && depths[s] <= depth && matches(s, key)) return true;
+        }
+        return false;
+    }
+
+    public void store(long[] key, int depth, int stamp) {
+        int deep = (Layout.hash(key) & mask) << 1;
+        int always = deep + 1;
+        for (int s = deep; s <= always; s++) {
+            if (stamps[s] != 0 && matches(s, key)) {
+                if (stamps[s] != stamp || depth < depths[s]) write(s, key, depth, stamp);
+                return;
+            }
+        }
+
+        if (stamps[deep] != stamp || depth <= depths[deep]) {
+            // the displaced entry moves to the always-replace slot, unless it is from an
+            // older iteration and that slot holds one from this iteration
+            if (stamps[deep] == stamp || (stamps[deep] != 0 && stamps[always] != stamp)) copy(deep, always);
+            write(deep, key, depth, stamp);
+        } else {
+            write(always, key, depth, stamp);
+        }
+    }
+
+    public int capacity() {
+        return stamps.length;
+    }
+
+    public long memoryBytes() {
+        return 8L * keys.length + 4L * depths.length + 4L * stamps.length;
+    }
+
+    private boolean matches(int slot, long[] key) {
+        int base = slot * words;
+        for (int w = 0; w < words; w++) {
+            if (keys[base + w] != key[w]) return false;
+        }
+        return true;
+    }
+
+    private void write(int slot, long[] key, int depth, int stamp) {
+        System.arraycopy(key, 0, keys, slot * words, words);
+        depths[slot] = depth;
+        stamps[slot] = stamp;
+    }
+
+    private void copy(int from, int to) {
+        System.arraycopy(keys, from * words, keys, to * words, words);
+        depths[to] = depths[from];
+        stamps[to] = stamps[from];
+    }
+}
@@ -0,0 +1,127 @@
+package rushhour;
+
+import java.util.Arrays;
+
+// Open-addressing hash set of packed state keys (see Layout).
+// Keys are stored inline, `words` longs per slot, with linear probing.
+public class VisitedSet {
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    private static final double DEFAULT_LOAD_FACTOR = 0.5;
+
+    private final int words;
+    private final double loadFactor;
+    private long[] keys;
+    private long[] used; // one bit per slot
+    private int capacity;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    public VisitedSet(int words) {
+        this(words, DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public VisitedSet(int words, int expectedSize, double loadFactor) {
+        if (words <= 0) {
+            throw new IllegalArgumentException("Key must have at least one word");
+        }
+        if (loadFactor <= 0 || loadFactor >= 1) {
+            throw new IllegalArgumentException("Load factor must be between 0 and 1, but found: " + loadFactor);
+        }
+        this.words = words;
+        this.loadFactor = loadFactor;
+        int initial = Integer.highestOneBit(Math.max(16, (int) Math.ceil(expectedSize / loadFactor)) - 1) << 1;
+        allocate(initial);
+    }
+
+    // Returns true if the key was not in the set yet
+    public boolean add(long[] key) {
+        int slot = findSlot(key);
+        if (isUsed(slot)) return false;
+        insertAt(slot, key, 0);
+        if (++size > threshold) {
+            resize(capacity << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long[] key) {
+        return isUsed(findSlot(key));
+    }
+
+    public void clear() {
+        Arrays.fill(used, 0L);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long memoryBytes() {
+        return 8L * keys.length + 8L * used.length;
+    }
+
+    // Table bytes divided by the number of stored states; includes the empty slots
+    public double bytesPerState() {
+        return size == 0 ? 0 : (double) memoryBytes() / size;
+    }
+
+    private int findSlot(long[] key) {
+        int slot = Layout.hash(key) & mask;
+        while (isUsed(slot) && !matches(slot, key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean matches(int slot, long[] key) {
+        int base = slot * words;
+        for (int w = 0; w < words; w++) {
+            if (keys[base + w] != key[w]) return false;
+        }
+        return true;
+    }
+
+    private boolean isUsed(int slot) {
+        return (used[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private void insertAt(int slot, long[] source, int sourceBase) {
+        System.arraycopy(source, sourceBase, keys, slot * words, words);
+        used[slot >>> 6] |= 1L << slot;
+    }
+
+    private void allocate(int newCapacity) {
+        if (newCapacity <= 0 || (long) newCapacity * words > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Visited set cannot grow beyond " + capacity + " slots");
+        }
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+        keys = new long[newCapacity * words];
+        used = new long[Math.max(1, newCapacity >>> 6)];
+        threshold = (int) (newCapacity * loadFactor);
+    }
+
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldUsed = used;
+        int oldCapacity = capacity;
+        allocate(newCapacity);
+
+        long[] key = new long[words];
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            if ((oldUsed[slot >>> 6] & (1L << slot)) == 0) continue;
+            System.arraycopy(oldKeys, slot * words, key, 0, words);
+            int target = Layout.hash(key) & mask;
+            while (isUsed(target)) {
+                target = (target + 1) & mask;
+            }
+            insertAt(target, oldKeys, slot * words);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package rushhour;
+
+// No estimate at all, for uninformed searches such as UCS
+public final class ZeroHeuristic implements Heuristic {
+    @Override
+    public int evaluate(LaneBoard board) {
+        return 0;
+    }
+
+    @Override
+    public int update(LaneBoard board, int parentH, int pieceIndex, int delta) {
+        return 0;
+    }
+
+    @Override
+    public boolean isAdmissible() {
+        return true;
+    }
+
+    @Override
+    public int maxValue(Layout layout) {
+        return 0;
+    }
+}